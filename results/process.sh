@@ -15,7 +15,21 @@ fix_names() {
 }
 
 disk_use() {
-  grep "Bytes" out-$1.txt > out-$1.tsv
+  # turn readKey DiskStats space results into "Bytes \t desc \t bytes \t id"
+  # lines, the id naming only the params the greps below select on
+  awk -F',|\r' '
+    NR == 1 { for (i = 8; i <= NF; i++) { gsub(/"|Param: /, "", $i); col[$i] = i }; next }
+    $1 ~ /\.readKey:[^:]*disk\.(beforeClose|afterClose|compacted)"$/ {
+      gsub(/"/, "")
+      split($1, b, ":")
+      desc = b[2]
+      sub(/.*disk\./, "", desc)
+      sub(/Close$/, "-close", desc)
+      id = b[1]
+      n = split("intKey num sequential valRandom valSize", names, " ")
+      for (i = 1; i <= n; i++) if (names[i] in col) id = id "-" names[i] "-" $col[names[i]]
+      printf "Bytes\t%s\t%.0f\t%s\n", tolower(desc), $5, id
+    }' out-$1.csv > out-$1.tsv
   fix_names out-$1.tsv
 }
 
@@ -182,7 +196,7 @@ plot_4_summary 4-intKey-rnd "Int" "Rnd" "100"
 
 grep 'intKey-true-num-1000000-sequential-false' out-4.tsv | grep 'after-close' | sed -r 's/Bytes\tafter-close\t([0-9]+)\torg.lmdbjava.bench.([ |a-z|A-Z]+).*/\1 "\2"/g' > 4-size.dat
 echo '104000000 "(Flat Array)"' > 4-size-sorted.dat
-sort -n 4-size.dat | awk '!(NR%3)' | sort -n >> 4-size-sorted.dat
+sort -n 4-size.dat >> 4-size-sorted.dat
 rm 4-size.dat
 mv 4-size-sorted.dat 4-size.dat
 size_fragment "4-size"
@@ -7,21 +7,21 @@
 rm -f out-?.csv out-?.tsv out-?.txt
 
 # Run 1 compares LMDB impls with 1M x 100 byte values and LMDB-specific configuration options (~ 1 GB w/o overhead)
-java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 10m -tu ms -p sync=true,false -p forceSafe=true,false -p metaSync=true,false -p writeMap=true,false -rff out-1.csv LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl | tee out-1.txt
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.DiskStats -f 3 -wi 3 -i 3 -to 10m -tu ms -p sync=true,false -p forceSafe=true,false -p metaSync=true,false -p writeMap=true,false -rff out-1.csv LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl | tee out-1.txt
 
 # Run 2 single shot (no warm up) native libraries with 1M entries to find reasonable ~2/4/8/16 KB value sizes (with int keys)
-java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 10m -tu ms -p sequential=true,false -p valSize=2026,2027,4080,4081,8176,8177,16368,16369 -e readCrc -e readRev -e readSeq -e readXxh64 -e write -rff out-2.csv LevelDb LmdbJavaAgrona RocksDb | tee out-2.txt
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.DiskStats -bm ss -wi 0 -i 1 -to 10m -tu ms -p sequential=true,false -p valSize=2026,2027,4080,4081,8176,8177,16368,16369 -e readCrc -e readRev -e readSeq -e readXxh64 -e write -rff out-2.csv LevelDb LmdbJavaAgrona RocksDb | tee out-2.txt
 
 # conclusion: optimal if valSize=2026||4080||8176||16368 (Howard Chu has advised record sizes (ie key + val) should increment in 4,096 bytes unit after 4,084, so 4084, 8180, 12276, 16372 etc -- this is what we are seeing above as the valSize is recSize - 4 byte keySize)
 
 # Run 3 single shot (no warm up) evaluates LevelDB/RocksDB batch size for 10M entries
 # /etc/security/limits.conf soft + hard nofile @ 1000000 + reboot
-java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 60m -tu ms -p valSize=8176 -p batchSize=1000000,10000000 -p num=10000000 -e readCrc -e readKey -e readRev -e readSeq -e readXxh64 -rff out-3.csv LevelDb RocksDb | tee out-3.txt
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.DiskStats -bm ss -wi 0 -i 1 -to 60m -tu ms -p valSize=8176 -p batchSize=1000000,10000000 -p num=10000000 -e readCrc -e readKey -e readRev -e readSeq -e readXxh64 -rff out-3.csv LevelDb RocksDb | tee out-3.txt
 
 # conclusion: optimal if batchSize=1M (1M was faster for RocksDB, and barely different for LevelDB, so we will go with 1M as it seems a reasonable compromise)
 
 # Run 4 compares all libraries with 1M x 100 byte values and assorted key types / access patterns (~ 100 MB w/o overhead)
-java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p intKey=true,false -p sequential=true,false -rff out-4.csv | tee out-4.txt
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.DiskStats -f 3 -wi 3 -i 3 -to 60m -tu ms -p intKey=true,false -p sequential=true,false -rff out-4.csv | tee out-4.txt
 
 # Following tests exclude readCrc, readRev and readXxh64 to save execution time
 
@@ -29,8 +29,11 @@ java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p intKey
 
 # Following tests exclude MvStore, as it gives "java.lang.OutOfMemoryError: Capacity: 2147483647"
 
+# Runs 5 and 6 reuse each store's written data across the read benchmarks via the dataset cache, which keeps every parameter set's data until removed
+
 # Run 5 single shot (no warm up) with 10M x 2026 byte values (~19 GB w/o overhead)
-java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 120m -tu ms -p sequential=true,false -p batchSize=1000000 -p num=10000000 -p valSize=2026 -e readCrc -e readRev -e readXxh64 -rff out-5.csv Chronicle LevelDb LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl RocksDb MapDb Xodus | tee out-5.txt
+java -jar target/benchmarks.jar -jvmArgsAppend -Dlmdbjava.datasetCache=true -rf csv -prof org.lmdbjava.bench.DiskStats -bm ss -wi 0 -i 1 -to 120m -tu ms -p sequential=true,false -p num=10000000 -p valSize=2026 -e readCrc -e readRev -e readXxh64 -rff out-5.csv Chronicle LevelDb LmdbJavaAgrona LmdbJavaByteBuffer LmdbJni LmdbLwjgl RocksDb MapDb Xodus | tee out-5.txt
+rm -rf ${TMPDIR:-/tmp}/lmdbjava-benchmark-scratch/dataset-cache
 
 # Following tests exclude MapDB as:
 # 1. valSize=8176 gives "Native memory allocation (mmap) failed to map 12288 bytes for committing reserved memory" with values of 8176 and above. Its performance on ~2 KB values above
@@ -46,4 +49,73 @@ java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 120m -tu ms -p seq
 # Following tests switch to measurement in seconds given run durations
 
 # Run 6 single shot (no warm up) with 10M x 4080/8176/16368 byte values (~38/76/152 GB w/o overhead)
-java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 1 -to 360m -tu s -p sequential=false -p batchSize=1000000 -p num=10000000 -p valSize=4080,8176,16368 -e readCrc -e readRev -e readXxh64 -rff out-6.csv Chronicle LevelDb LmdbJavaAgrona RocksDb | tee out-6.txt
+java -jar target/benchmarks.jar -jvmArgsAppend -Dlmdbjava.datasetCache=true -rf csv -prof org.lmdbjava.bench.DiskStats -bm ss -wi 0 -i 1 -to 360m -tu s -p sequential=false -p num=10000000 -p valSize=4080,8176,16368 -e readCrc -e readRev -e readXxh64 -rff out-6.csv Chronicle LevelDb LmdbJavaAgrona RocksDb | tee out-6.txt
+rm -rf ${TMPDIR:-/tmp}/lmdbjava-benchmark-scratch/dataset-cache
+
+# Run 7 sweeps concurrent readers (each thread with its own txn/cursor) over 10M x 100 byte values with random int keys
+for t in 1 2 4 8 16 32 64; do
+  java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -t $t -p sequential=false -p num=10000000 -rff out-7-t$t.csv ".*\.read(Key|Seq)Mt" | tee out-7-t$t.txt
+done
+
+# Run 8 YCSB core workloads A-F over 10M x 100 byte values with random int keys (Chronicle excluded from E as it is unordered)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=10000000 -p workload=A,B,C,D,F -rff out-8.csv ".*\.mixed" | tee out-8.txt
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=10000000 -p workload=E -rff out-8-e.csv "(LevelDb|LmdbJavaAgrona|LmdbJavaByteBuffer|LmdbJni|LmdbLwjgl|MapDb|MvStore|RocksDb|Xodus)\.mixed" | tee out-8-e.txt
+
+# Run 9 sweeps point-lookup readers against one committing writer over 10M x 100 byte values with random int keys
+for r in 1 3 7 15; do
+  java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -tg $r,1 -p sequential=false -p num=10000000 -rff out-9-r$r.csv ".*\.contended" | tee out-9-r$r.txt
+done
+
+# Run 10 compares per-thread write txns against group commit for durable puts from 1..64 threads
+for t in 1 4 16 64; do
+  java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -t $t -p sequential=false -p num=1000000 -p sync=true -p groupCommit=false,true -rff out-10-t$t.csv "LmdbJavaAgrona\.writeMt" | tee out-10-t$t.txt
+done
+
+# Run 11 compares skewed key popularity for random lookups and YCSB B over 10M x 100 byte values with random int keys
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=10000000 -p distribution=uniform,zipfian:0.99,hotspot:0.2:0.8,latest -rff out-11.csv ".*\.(readKey|mixed)$" | tee out-11.txt
+
+# Run 12 grows each store to 1B entries with 8 byte keys, timing every 100M appended (per-iteration times are in the JSON raw data)
+java -jar target/benchmarks.jar -rf json -bm ss -wi 0 -i 10 -to 600m -tu s -p sequential=true,false -p batchSize=1000000 -p scaleStep=100000000 -rff out-12.json "(Chronicle|LevelDb|LmdbJavaAgrona|RocksDb)\.writeScale" | tee out-12.txt
+
+# Run 13 compares staged values against values generated in place via MDB_RESERVE for 4-16 KB values
+java -jar target/benchmarks.jar -rf csv -bm ss -wi 3 -i 10 -to 60m -tu ms -p sequential=true,false -p num=1000000 -p valSize=4080,8176,16368 -p reserve=false,true -rff out-13.csv "LmdbJava(Agrona|ByteBuffer)\.write$" | tee out-13.txt
+
+# Run 14 compares get+put counter increments against in-place increments (with and without MDB_WRITEMAP)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=1000000 -p writeMap=true,false -p distribution=insertion,zipfian -rff out-14.csv "(LmdbJavaAgrona|LmdbLwjgl)\.rmw" | tee out-14.txt
+
+# Run 15 compares the FFM (Panama) LMDB binding against LWJGL and LmdbJava Agrona (requires a Java 22+ build and runtime)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=true,false -p num=10000000 -rff out-15.csv "(LmdbJavaAgrona|LmdbLwjgl|LmdbPanama)\.(read(Key|Rev|Seq)|write)$" | tee out-15.txt
+
+# Run 16 issues YCSB B open-loop at 10K-200K ops/sec over 1M x 100 byte values with random int keys (latency percentiles are the latency.* secondary results)
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.BenchStats -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=1000000 -p workload=B -p rate=10000,50000,100000,200000 -rff out-16.csv ".*\.openLoop" | tee out-16.txt
+
+# Run 17 samples individual lookups and overwrites over 10M x 100 byte values with random int keys, uniform and skewed
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu us -p sequential=false -p num=10000000 -p distribution=insertion,zipfian -rff out-17.csv ".*\.(readKeyOp|writeOp)" | tee out-17.txt
+
+# Run 18 repeats the 1M x 100 byte random int key reads and writes with store-internal statistics as secondary results
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=1000000 -prof org.lmdbjava.bench.StoreStats -rff out-18.csv "(LmdbJavaAgrona|LmdbJavaByteBuffer|RocksDb|Xodus)\.(readKey|write|mixed)$" | tee out-18.txt
+
+# Run 19 compares LMDB read-ahead and madvise hints for cold-cache lookups and scans over 10M x 2026 byte values (~19 GB w/o overhead)
+java -jar target/benchmarks.jar -rf csv -bm ss -wi 0 -i 3 -to 120m -tu ms -p sequential=false -p num=10000000 -p valSize=2026 -p coldCache=true -p readAhead=true,false -p mapAdvice=none,random,sequential,willneed,touch -prof org.lmdbjava.bench.VmStats -rff out-19.csv "LmdbJava(Agrona|ByteBuffer)\.read(Key|Seq|Crc)$" | tee out-19.txt
+
+# Run 20 times reopening each store (and reading its first key) after a clean close or a kill, from 1M to 100M x 100 byte values
+java -jar target/benchmarks.jar -rf csv -wi 3 -i 10 -to 120m -tu ms -p sequential=false -p num=1000000,10000000,100000000 -p shutdown=clean,killed -rff out-20.csv "(Chronicle|LevelDb|LmdbJavaAgrona|MvStore|RocksDb|Xodus)\.reopen" | tee out-20.txt
+java -jar target/benchmarks.jar -rf csv -wi 3 -i 10 -to 120m -tu ms -p sequential=false -p num=1000000,10000000,100000000 -p shutdown=clean -rff out-20-mapdb.csv "MapDb\.reopen" | tee out-20-mapdb.txt
+
+# Run 21 kills writers of 100 byte values committed one put at a time, with and without syncing each commit, and times recovery (lost acknowledged puts and put rates are the durability.* secondary results)
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.BenchStats -wi 3 -i 20 -to 120m -tu ms -p sequential=false -p num=10000000 -p sync=true,false -p killWindow=1000,10000 -rff out-21.csv "(LevelDb|LmdbJavaAgrona|RocksDb)\.crash" | tee out-21.txt
+
+# Run 22 reads 10M x 100 byte values with random int keys as ranges of 10, 100 and 1000 entries from random keys (compare with readSeq)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=10000000 -p distribution=uniform -p scanLength=10,100,1000 -rff out-22.csv ".*\.read(Range|Seq)$" | tee out-22.txt
+
+# Run 23 looks up 10M absent keys and mixes of present and absent keys, with and without RocksDB Bloom filters (levels in use are in the StoreStats results)
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 3 -to 60m -tu ms -p sequential=false -p num=10000000 -p hitRatio=1,0.5,0.1 -p bloomBits=0,10 -prof org.lmdbjava.bench.StoreStats -rff out-23.csv ".*\.read(Key|Missing)$" | tee out-23.txt
+
+# Run 24 deletes 10%, 50% and 90% of 10M x 100 byte values with random int keys and reinserts them, reporting the space used at each step
+java -jar target/benchmarks.jar -rf csv -wi 1 -i 5 -to 120m -tu ms -p sequential=false -p num=10000000 -p deleteRatio=0.1,0.5,0.9 -prof org.lmdbjava.bench.DiskStats -rff out-24.csv ".*\.delete(ThenReinsert)?$" | tee out-24.txt
+
+# Run 25 overwrites existing keys of 10M x 100 byte values with random int keys, uniform and skewed, in steady state
+java -jar target/benchmarks.jar -rf csv -f 3 -wi 3 -i 10 -to 120m -tu ms -p sequential=false -p num=10000000 -p distribution=uniform,zipfian -prof org.lmdbjava.bench.DiskStats -rff out-25.csv ".*\.update$" | tee out-25.txt
+
+# Run 26 single shot (no warm up) sweeps the puts per commit from 1 to all 1M x 100 byte values with random int keys, with and without syncing each commit
+java -jar target/benchmarks.jar -rf csv -prof org.lmdbjava.bench.DiskStats -bm ss -wi 0 -i 3 -to 600m -tu ms -p sequential=false -p num=1000000 -p batchSize=1,10,100,1000,10000,100000,1000000 -p sync=true,false -rff out-26.csv "(LevelDb|LmdbJavaAgrona|LmdbJavaByteBuffer|LmdbJni|LmdbLwjgl|MvStore|RocksDb|Xodus)\.write$" | tee out-26.txt
@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.results.AggregationPolicy.AVG;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler that reports what the benchmark states themselves measure as
+ * secondary results: the latency percentiles of the "openLoop" benchmarks
+ * ({@link OpenLoop}) and the acknowledged and lost puts of the "crash"
+ * benchmarks ({@link Crash}). Enable it with
+ * <code>-prof org.lmdbjava.bench.BenchStats</code>.
+ *
+ * <p>
+ * States record their values for each measurement iteration when it is torn
+ * down, and JMH averages them over the iterations.
+ */
+public final class BenchStats implements InternalProfiler {
+
+  private static final String PREFIX = "·";
+  private static final Map<String, ScalarResult> RESULTS
+      = new ConcurrentSkipListMap<>();
+
+  /**
+   * Records the value of a statistic for the current iteration.
+   *
+   * @param name  statistic name, prefixed by its topic (eg "latency.p99")
+   * @param value value over the iteration
+   * @param unit  unit of the value
+   */
+  static void record(final String name, final double value, final String unit) {
+    final String label = PREFIX + name;
+    RESULTS.put(label, new ScalarResult(label, value, unit, AVG));
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      final BenchmarkParams benchmarkParams,
+      final IterationParams iterationParams,
+      final IterationResult result) {
+    final Collection<ScalarResult> results = new ArrayList<>(RESULTS.values());
+    RESULTS.clear();
+    return results;
+  }
+
+  @Override
+  public void beforeIteration(final BenchmarkParams benchmarkParams,
+                              final IterationParams iterationParams) {
+    // states record whether or not this profiler is in use
+  }
+
+  @Override
+  public String getDescription() {
+    return "Open-loop latency and crash durability";
+  }
+}
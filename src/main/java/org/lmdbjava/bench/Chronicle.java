@@ -21,12 +21,17 @@
 package org.lmdbjava.bench;
 
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.chronicle.map.ChronicleMap.of;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.File;
 import java.io.IOException;
@@ -37,8 +42,11 @@ import org.agrona.concurrent.UnsafeBuffer;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
@@ -54,10 +62,94 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class Chronicle {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final Reader r, final ThreadReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(r);
+    if (r.intKey) {
+      t.wkb.putInt(0, key);
+    } else {
+      t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+    }
+    bh.consume(r.map.getUsing(t.wkb.byteArray(), t.wvb.byteArray()));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final Reader r, final Contention c)
+      throws IOException {
+    r.put(c.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final Reader r, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(r, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final Reader r, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(r, w, bh);
+  }
+
   // Chroncile Map does not provide ordered keys, so no CRC/XXH64/rev/prev test
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.map.getUsing(r.wkb.byteArray(), r.wvb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.wkb.putInt(0, key);
+      } else {
+        t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.map.getUsing(t.wkb.byteArray(), t.wvb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final Reader r, final Step s, final Blackhole bh) {
+    r.get(s.readKey(r), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
       if (r.intKey) {
         r.wkb.putInt(0, key);
       } else {
@@ -67,14 +159,45 @@ public class Chronicle {
     }
   }
 
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final Reader r) {
+    for (final int key : r.visits) {
+      r.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final Reader r, final Step s) {
+    r.put(s.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonChroncileMap extends Common {
+  public static class CommonChroncileMap extends Common implements KvStore {
 
     ChronicleMap<byte[], byte[]> map;
 
@@ -93,25 +216,36 @@ public class Chronicle {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
+      openStore();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      closeStore();
+      super.teardown();
+    }
+
+    @Override
+    void closeStore() {
+      map.close();
+    }
 
+    @Override
+    void openStore() {
       try {
         map = of(byte[].class, byte[].class)
             .constantKeySizeBySample(new byte[keySize])
             .constantValueSizeBySample(new byte[valSize])
-            .entries(num)
+            .entries(capacity)
+            // room for the "mixed" benchmark's inserts
+            .maxBloatFactor(2.0)
             .createPersistedTo(new File(tmp, "chroncile.map"));
       } catch (final IOException ex) {
         throw new IllegalStateException(ex);
       }
     }
 
-    @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      map.close();
-      super.teardown();
-    }
-
     void write() {
       final int rndByteMax = RND_MB.length - valSize;
       int rndByteOffset = 0;
@@ -133,16 +267,111 @@ public class Chronicle {
         map.put(wkb.byteArray(), wvb.byteArray());
       }
     }
+
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      map.remove(wkb.byteArray());
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      bh.consume(map.getUsing(wkb.byteArray(), wvb.byteArray()));
+    }
+
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      putVal(key);
+      map.put(wkb.byteArray(), wvb.byteArray());
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      throw new UnsupportedOperationException("Chronicle Map is unordered");
+    }
+
+    private void putKey(final int key) {
+      if (intKey) {
+        wkb.putInt(0, key, LITTLE_ENDIAN);
+      } else {
+        wkb.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+
+    private void putVal(final int key) {
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        wvb.putInt(0, key);
+      }
+    }
+  }
+
+  /**
+   * Populated like {@link Reader} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonChroncileMap {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
   public static class Reader extends CommonChroncileMap {
 
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
+      super.setup(b);
+      if (!cached) {
+        super.write();
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  @State(Benchmark)
+  public static class Reopener extends CommonChroncileMap {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
       super.write();
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
     }
 
     @TearDown(Trial)
@@ -152,6 +381,61 @@ public class Chronicle {
     }
   }
 
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte keys.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonChroncileMap {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      capacity = g.total;
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void append(final long from, final long to) {
+      final KeySource source = longKeys();
+      for (long i = from; i < to; i++) {
+        final long key = source.key(i);
+        wkb.putLong(0, key);
+        if (valRandom) {
+          wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+        } else {
+          wvb.putLong(0, key);
+        }
+        map.put(wkb.byteArray(), wvb.byteArray());
+      }
+    }
+  }
+
+  /**
+   * Per-thread key buffers over the shared {@link Reader} store, so the "Mt"
+   * benchmarks can run with any <code>-t</code>.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    MutableDirectBuffer wkb;
+    MutableDirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+      wvb = new UnsafeBuffer(new byte[r.valSize]);
+    }
+  }
+
   @SuppressWarnings("checkstyle:javadoctype")
   @State(Benchmark)
   public static class Writer extends CommonChroncileMap {
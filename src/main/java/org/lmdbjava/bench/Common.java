@@ -21,22 +21,33 @@
 package org.lmdbjava.bench;
 
 import static java.lang.Integer.BYTES;
+import static java.lang.Long.parseUnsignedLong;
 import static java.lang.System.getProperty;
-import static java.lang.System.out;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.Files.readAllLines;
 import static jnr.posix.POSIXFactory.getPOSIX;
+import static org.openjdk.jmh.annotations.Level.Iteration;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.zip.CRC32;
 
+import jnr.ffi.LibraryLoader;
 import jnr.posix.FileStat;
 import jnr.posix.POSIX;
-import org.agrona.collections.IntHashSet;
 import org.apache.commons.math3.random.BitsStreamGenerator;
 import org.apache.commons.math3.random.MersenneTwister;
 import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.infra.BenchmarkParams;
 
 /**
@@ -51,17 +62,76 @@ import org.openjdk.jmh.infra.BenchmarkParams;
                    "checkstyle:visibilitymodifier"})
 public class Common {
 
+  static final LibC LIBC = LibraryLoader.create(LibC.class).load("c");
   static final byte[] RND_MB = new byte[1_048_576];
   static final int STRING_KEY_LENGTH = 16;
   private static final POSIX POSIX = getPOSIX();
+  private static final File DATASET_CACHE;
+  private static final int MAX_DIR_NAME = 200;
+  private static final int O_RDONLY = 0; // Linux open(2) flag
+  private static final Path PROC_MAPS = Paths.get("/proc/self/maps");
   private static final BitsStreamGenerator RND = new MersenneTwister();
   private static final int S_BLKSIZE = 512; // from sys/stat.h
   private static final File TMP_BENCH;
 
+  /**
+   * Puts per commit when writing many entries (the "write" and "writeScale"
+   * benchmarks), from 1 up to {@link #num} or more for a single commit. A
+   * commit is a transaction for LMDB and Xodus, a write batch for LevelDB and
+   * RocksDB and a store commit for MVStore. 0 keeps each store's own
+   * granularity (see {@link #putsPerCommit(int)}).
+   */
+  @Param("0")
+  int batchSize;
+
+  /**
+   * Whether this state's fully written store may be cloned from (and saved to)
+   * the {@link DatasetCache}. Subclasses set this before
+   * {@link #setup(BenchmarkParams)}.
+   */
+  boolean cacheable;
+
+  /**
+   * Whether {@link #setup(BenchmarkParams)} cloned a fully written store from
+   * the {@link DatasetCache} into {@link #tmp}, so it need not be written.
+   */
+  boolean cached;
+
+  /**
+   * Entries the store is sized for. Subclasses may set this before
+   * {@link #setup(BenchmarkParams)}, which otherwise sets it to {@link #num}.
+   */
+  long capacity;
+
+  /**
+   * Whether the store's files are evicted from the OS page cache before each
+   * iteration (see {@link #prepareFiles()}), so reads of a populated store hit
+   * the storage device rather than memory.
+   */
+  @Param("false")
+  boolean coldCache;
+
   File compact;
 
   CRC32 crc;
 
+  /**
+   * Popularity of keys in the order "readKey" and "mixed" benchmarks visit
+   * them (see {@link KeyDistribution}). The default, "insertion", visits every
+   * key once in the order it was inserted.
+   */
+  @Param("insertion")
+  String distribution;
+
+  /**
+   * Fraction of {@link #visits} that are keys of the store. The others are
+   * replaced by keys that were never inserted (see {@link #missing}), so
+   * "readKey" and the other benchmarks following {@link #visits} also probe
+   * for absent keys.
+   */
+  @Param("1")
+  double hitRatio;
+
   /**
    * Keys are always an integer, however they are actually stored as integers
    * (taking 4 bytes) or as zero-padded 16 byte strings. Storing keys as
@@ -70,15 +140,45 @@ public class Common {
   @Param("true")
   boolean intKey;
 
+  /**
+   * Seed of the random key order used when {@link #sequential} is false, so
+   * every trial (and store) sees the same keys.
+   */
+  @Param("1")
+  long keySeed;
+
   /**
    * Determined during {@link #setup()} based on {@link #intKey} value.
    */
   int keySize;
   /**
-   * Keys in designated (random/sequential) order.
+   * Keys in designated (random/sequential) order, from a {@link KeySource}.
    */
   int[] keys;
 
+  /**
+   * Whether the store never rewrites a file in place (only creating, renaming
+   * and deleting them), so {@link DatasetCache} clones may be hard links.
+   * Subclasses set this before {@link #setup(BenchmarkParams)}.
+   */
+  boolean linkable;
+
+  /**
+   * Whether keys are 8 byte longs from {@link #longKeys()} instead of ints or
+   * strings (see {@link #intKey}), leaving {@link #keys} and {@link #visits}
+   * unset. Only the "writeScale" states set this, before
+   * {@link #setup(BenchmarkParams)}, as a long key space is only needed to
+   * grow a store past the int keys every other benchmark uses.
+   */
+  boolean longKey;
+
+  /**
+   * Keys that were never inserted, one per key of {@link #keys} and in the
+   * same sequential or random order (so with <code>sequential=true</code> they
+   * all follow the last inserted key). Only set up for "readMissing".
+   */
+  int[] missing;
+
   /**
    * Number of entries to read/write to the database.
    */
@@ -112,69 +212,289 @@ public class Common {
   @Param("100")
   int valSize;
 
+  /**
+   * Keys visited by "readKey" and "mixed" benchmarks, drawn from
+   * {@link #keys} according to {@link #distribution} and then mixed with
+   * absent keys according to {@link #hitRatio}.
+   */
+  int[] visits;
+
+  private File dataset;
+
+  private int rndByteOffset;
+
+  private boolean storeOpen;
+
+  private File template;
+
+  private boolean templateLinked;
+
+  private final Deque<AutoCloseable> threadResources
+      = new ConcurrentLinkedDeque<>();
+
   static {
     RND.nextBytes(RND_MB);
     final String tmpParent = getProperty("java.io.tmpdir");
     TMP_BENCH = new File(tmpParent, "lmdbjava-benchmark-scratch");
+    DATASET_CACHE = new File(TMP_BENCH, "dataset-cache");
   }
 
   public void setup(final BenchmarkParams b) throws IOException {
-    keySize = intKey ? BYTES : STRING_KEY_LENGTH;
+    if (longKey) {
+      keySize = Long.BYTES;
+    } else {
+      keySize = intKey ? BYTES : STRING_KEY_LENGTH;
+    }
+    if (capacity == 0) {
+      capacity = num;
+    }
     crc = new CRC32();
-    final IntHashSet set = new IntHashSet(num);
-    keys = new int[num];
-    for (int i = 0; i < num; i++) {
-      if (sequential) {
-        keys[i] = i;
-      } else {
-        while (true) {
-          int candidateKey = RND.nextInt();
-          if (candidateKey < 0) {
-            candidateKey *= -1;
-          }
-          if (!set.contains(candidateKey)) {
-            set.add(candidateKey);
-            keys[i] = candidateKey;
-            break;
-          }
-        }
+    final String method = b.getBenchmark()
+        .substring(b.getBenchmark().lastIndexOf('.') + 1);
+    // long key writers draw from longKeys() instead of these int keys
+    if (!longKey) {
+      final KeySource source = sequential
+                               ? KeySource.sequential(Integer.SIZE - 1)
+                               : KeySource.random(keySeed, Integer.SIZE - 1);
+      keys = source.keys(num);
+      visits = KeyDistribution.visits(distribution, keys, RND);
+      if (hitRatio < 1.0) {
+        visits = withMisses(visits, source);
+      }
+      if ("readMissing".equals(method)) {
+        missing = source.keys(num, num);
       }
     }
 
     rmdir(TMP_BENCH);
     tmp = create(b, "");
     compact = create(b, "-compacted");
+
+    if (cacheable && DatasetCache.enabled()) {
+      final File entry = DatasetCache.entry(DATASET_CACHE, this, b);
+      cached = DatasetCache.restore(entry, tmp, linkable);
+      // only read-only trials leave the store as written
+      if (!cached && method.startsWith("read")) {
+        dataset = entry;
+      }
+    }
+    storeOpen = true;
+  }
+
+  /**
+   * Registers a resource (eg a read transaction) opened by a Thread-scoped
+   * state against this state's store. JMH tears down Benchmark-scoped states
+   * before Thread-scoped states, so the store closes these first via
+   * {@link #closeThreadResources()}.
+   *
+   * @param resource to close before the store is closed
+   */
+  final void registerThreadResource(final AutoCloseable resource) {
+    threadResources.push(resource);
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingGenericException")
+  final void closeThreadResources() throws IOException {
+    while (!threadResources.isEmpty()) {
+      try {
+        threadResources.pop().close();
+      } catch (final Exception ex) {
+        throw new IOException(ex);
+      }
+    }
+  }
+
+  /**
+   * Prepares the open store's files before each iteration: evicts them from
+   * the OS page cache if {@link #coldCache} is set, then applies any access
+   * hints via {@link #adviseAccess()}.
+   *
+   * @throws IOException if the files could not be prepared
+   */
+  @Setup(Iteration)
+  public void prepareFiles() throws IOException {
+    if (!storeOpen) {
+      return;
+    }
+    if (coldCache) {
+      evictCache();
+    }
+    adviseAccess();
   }
 
   public void reportSpaceBeforeClose() {
-    if (tmp.getName().contains(".readKey-")) {
-      reportSpaceUsed(tmp, "before-close");
+    reportSpaceUsed(tmp, "beforeClose");
+  }
+
+  /**
+   * Publishes the store's statistics to {@link StoreStats} at the end of each
+   * iteration, unless a per-invocation teardown already closed the store (and
+   * published them via {@link #reportStatsBeforeClose()}).
+   *
+   * @throws IOException if the store failed
+   */
+  @TearDown(Iteration)
+  public void reportStats() throws IOException {
+    if (storeOpen) {
+      reportStatsBeforeClose();
+    }
+  }
+
+  public void reportStatsBeforeClose() throws IOException {
+    if (StoreStats.active()) {
+      stats();
     }
   }
 
   public void teardown() throws IOException {
-    // we only output for key, as all impls offer it and it should be fixed
-    if (tmp.getName().contains(".readKey-")) {
-      reportSpaceUsed(tmp, "after-close");
+    storeOpen = false;
+    reportSpaceUsed(tmp, "afterClose");
+    if (dataset != null) {
+      DatasetCache.save(tmp, dataset, linkable);
     }
     rmdir(TMP_BENCH);
   }
 
-  @SuppressWarnings("UseOfSystemOutOrSystemErr")
+  /**
+   * Publishes the space allocated to the files in a directory to
+   * {@link DiskStats}, if that profiler is in use.
+   *
+   * @param dir  store directory
+   * @param desc point at which the space is measured (eg "afterClose")
+   */
   protected void reportSpaceUsed(final File dir, final String desc) {
+    if (!DiskStats.active()) {
+      return;
+    }
     final File[] files = dir.listFiles();
     if (files == null) {
       return;
     }
     long bytes = 0;
+    final FileStat stat = POSIX.allocateStat();
     for (final File f : files) {
       if (f.isDirectory()) {
         throw new UnsupportedOperationException("impl created directory");
       }
-      final FileStat stat = POSIX.stat(f.getAbsolutePath());
-      bytes += stat.blocks() * S_BLKSIZE;
+      // an open store's background compaction may delete files meanwhile
+      if (POSIX.stat(f.getAbsolutePath(), stat) == 0) {
+        bytes += stat.blocks() * S_BLKSIZE;
+      } else if (f.exists()) {
+        throw new IllegalStateException("Cannot stat " + f);
+      }
     }
-    out.println("\nBytes\t" + desc + "\t" + bytes + "\t" + dir.getName());
+    DiskStats.space(desc, bytes);
+  }
+
+  /**
+   * Source of non-negative long keys, in the order given by
+   * {@link #sequential} and {@link #keySeed}.
+   *
+   * @return a key source for 8 byte keys
+   */
+  final KeySource longKeys() {
+    return sequential
+               ? KeySource.sequential(Long.SIZE - 1)
+               : KeySource.random(keySeed, Long.SIZE - 1);
+  }
+
+  /**
+   * Opens the store again after {@link #closeForReopen(String)}, from a fresh
+   * copy of the files it left (taking care of any recovery the store needs).
+   * The caller is the timed "reopen" benchmark, so the copy is restored by
+   * {@link #restoreForReopen()} beforehand.
+   *
+   * @throws IOException if the store failed to open
+   */
+  final void reopen() throws IOException {
+    openStore();
+    storeOpen = true;
+  }
+
+  /**
+   * Closes the store (as opened by {@link #setup(BenchmarkParams)} or the
+   * previous {@link #reopen()}) so a child process forked by {@link Crash} can
+   * write the files in <code>dir</code>, from which {@link #reopen()} then
+   * recovers.
+   *
+   * @param dir store directory of the child
+   * @throws IOException if the store failed to close
+   */
+  final void closeForCrash(final File dir) throws IOException {
+    if (storeOpen) {
+      closeStore();
+      storeOpen = false;
+    }
+    tmp = dir;
+  }
+
+  /**
+   * Closes the populated store and keeps a copy of its files for
+   * {@link #reopen()}, either as closed ("clean") or as a process killed
+   * after its last write would leave them ("killed", where the files are
+   * copied while the store is still open).
+   *
+   * @param shutdown "clean" or "killed"
+   * @throws IOException if the store failed or the copy could not be made
+   */
+  final void closeForReopen(final String shutdown) throws IOException {
+    switch (shutdown) {
+      case "clean":
+        closeStore();
+        saveTemplate(linkable);
+        break;
+      case "killed":
+        // an open store may still rewrite its files, so they are copied
+        saveTemplate(false);
+        closeStore();
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown shutdown " + shutdown);
+    }
+    storeOpen = false;
+  }
+
+  /**
+   * Closes the store opened by the previous {@link #reopen()}, if any, and
+   * restores the files saved by {@link #closeForReopen(String)}.
+   *
+   * @throws IOException if the store failed or the copy could not be restored
+   */
+  final void restoreForReopen() throws IOException {
+    if (storeOpen) {
+      closeStore();
+      storeOpen = false;
+    }
+    rmdir(tmp);
+    if (!tmp.mkdirs()) {
+      throw new IllegalStateException("Cannot mkdir " + tmp);
+    }
+    DatasetCache.restore(template, tmp, templateLinked);
+  }
+
+  /**
+   * Offset into {@link #RND_MB} of the next random value, advancing through
+   * the buffer the same way the "write" benchmarks do.
+   *
+   * @return offset of <code>valSize</code> random bytes
+   */
+  final int nextRndByteOffset() {
+    final int offset = rndByteOffset;
+    rndByteOffset += valSize;
+    if (rndByteOffset >= RND_MB.length - valSize) {
+      rndByteOffset = 0;
+    }
+    return offset;
+  }
+
+  /**
+   * Puts per commit in effect, as given by {@link #batchSize}.
+   *
+   * @param storeDefault puts per commit if {@link #batchSize} is 0
+   * @return puts per commit
+   */
+  final int putsPerCommit(final int storeDefault) {
+    return batchSize > 0 ? batchSize : storeDefault;
   }
 
   final String padKey(final int key) {
@@ -182,17 +502,156 @@ public class Common {
     return "0000000000000000".substring(0, 16 - skey.length()) + skey;
   }
 
+  /**
+   * Records engine-internal statistics of the open store via
+   * {@link StoreStats#record}. Stores without such statistics keep this no-op.
+   *
+   * @throws IOException if the store failed
+   */
+  void stats() throws IOException {
+    // no statistics by default
+  }
+
+  /**
+   * Locates the parts of this process's memory mappings (as listed by
+   * <code>/proc/self/maps</code>) that hold the store's files. Mappings past
+   * the end of a file (eg the unused part of an LMDB map) and written private
+   * mappings (which no longer mirror the page cache) are excluded.
+   *
+   * @return start address and length of each mapped extent
+   * @throws IOException if the mappings could not be read
+   */
+  final List<long[]> mappedExtents() throws IOException {
+    final String dir = tmp.getAbsolutePath() + File.separator;
+    final List<long[]> extents = new ArrayList<>();
+    for (final String line : readAllLines(PROC_MAPS, US_ASCII)) {
+      // eg "7f2a1c000000-7f2a1c400000 rw-s 00000000 fd:01 1234  /tmp/data.mdb"
+      final String[] fields = line.split("\\s+", 6);
+      if (fields.length < 6 || !fields[5].startsWith(dir)
+          || fields[1].startsWith("w", 1) && fields[1].endsWith("p")) {
+        continue;
+      }
+      final String[] range = fields[0].split("-");
+      final long start = parseUnsignedLong(range[0], 16);
+      final long end = parseUnsignedLong(range[1], 16);
+      final long offset = parseUnsignedLong(fields[2], 16);
+      final long length = Math.min(end - start,
+                                   new File(fields[5]).length() - offset);
+      if (length > 0) {
+        extents.add(new long[]{start, length});
+      }
+    }
+    return extents;
+  }
+
+  /**
+   * Looks up a key, so {@link Crash} can check which puts survived. Stores
+   * offering the "crash" benchmark implement this.
+   *
+   * @param key to find
+   * @return whether the key is present
+   * @throws IOException if the store failed
+   */
+  boolean contains(final int key) throws IOException {
+    throw new UnsupportedOperationException("crash not supported");
+  }
+
+  /**
+   * Opens the store in {@link #tmp}, which may already hold its files. Stores
+   * offering the "reopen" benchmark implement this and {@link #closeStore()}.
+   *
+   * @throws IOException if the store failed to open
+   */
+  void openStore() throws IOException {
+    throw new UnsupportedOperationException("reopen not supported");
+  }
+
+  /**
+   * Closes the store opened by {@link #openStore()}, leaving its files.
+   *
+   * @throws IOException if the store failed to close
+   */
+  void closeStore() throws IOException {
+    throw new UnsupportedOperationException("reopen not supported");
+  }
+
+  /**
+   * Applies access hints (eg {@link LibC#madvise} advice) to the open store
+   * before each iteration. Stores without such hints keep this no-op.
+   *
+   * @throws IOException if the hints could not be applied
+   */
+  void adviseAccess() throws IOException {
+    // no hints by default
+  }
+
+  /**
+   * Commits the {@link KvStore} operations made since the last commit, for
+   * stores whose operations leave committing to the caller. Other stores
+   * commit each operation and keep this no-op.
+   *
+   * @throws IOException if the store failed
+   */
+  void commit() throws IOException {
+    // each operation committed itself
+  }
+
   private File create(final BenchmarkParams b, final String suffix) {
-    final File f = new File(TMP_BENCH, b.id() + suffix);
+    // ids grow with every param, but most filesystems cap names at 255 bytes
+    String name = b.id();
+    if (name.length() > MAX_DIR_NAME) {
+      name = name.substring(0, MAX_DIR_NAME) + '-'
+                 + Integer.toHexString(name.hashCode());
+    }
+    final File f = new File(TMP_BENCH, name + suffix);
     if (!f.mkdirs()) {
       throw new IllegalStateException("Cannot mkdir " + f);
     }
     return f;
   }
 
+  /**
+   * Evicts every file of the store from the OS page cache. As the kernel
+   * evicts neither mapped nor dirty pages, the store's mappings are dropped
+   * from this process and its files synced first.
+   *
+   * @throws IOException if a file could not be evicted
+   */
+  private void evictCache() throws IOException {
+    for (final long[] extent : mappedExtents()) {
+      if (LIBC.madvise(extent[0], extent[1], LibC.MADV_DONTNEED) != 0) {
+        throw new IOException("Cannot release mapped pages of " + tmp);
+      }
+    }
+    final File[] files = tmp.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (final File f : files) {
+      final int fd = POSIX.open(f.getAbsolutePath(), O_RDONLY, 0);
+      if (fd < 0) {
+        throw new IOException("Cannot open " + f);
+      }
+      try {
+        POSIX.fdatasync(fd);
+        if (LIBC.posix_fadvise(fd, 0, 0, LibC.POSIX_FADV_DONTNEED) != 0) {
+          throw new IOException("Cannot evict " + f);
+        }
+      } finally {
+        POSIX.close(fd);
+      }
+    }
+  }
+
+  private void saveTemplate(final boolean link) throws IOException {
+    template = new File(TMP_BENCH, "reopen-template");
+    templateLinked = link;
+    DatasetCache.save(tmp, template, link);
+  }
+
   @SuppressWarnings("checkstyle:ReturnCount")
   private void rmdir(final File file) {
-    if (!file.exists()) {
+    if (!file.exists() || file.equals(DATASET_CACHE)) {
       return;
     }
     if (file.isDirectory()) {
@@ -204,8 +663,24 @@ public class Common {
         rmdir(f);
       }
     }
-    if (!file.delete()) {
+    // the scratch directory remains while it holds the dataset cache
+    if (!file.delete() && !file.equals(TMP_BENCH)) {
       throw new IllegalStateException("Cannot delete " + file);
     }
   }
+
+  /**
+   * Replaces visits by absent keys with probability <code>1 -
+   * hitRatio</code>. The i-th visit is replaced by the key at position
+   * <code>num + i</code> of the key source, which no inserted key shares.
+   */
+  private int[] withMisses(final int[] hits, final KeySource source) {
+    final int[] mixed = new int[hits.length];
+    for (int i = 0; i < hits.length; i++) {
+      mixed[i] = RND.nextDouble() < hitRatio
+                 ? hits[i]
+                 : (int) source.key((long) num + i);
+    }
+    return mixed;
+  }
 }
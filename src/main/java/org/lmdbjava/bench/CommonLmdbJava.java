@@ -22,23 +22,37 @@ package org.lmdbjava.bench;
 
 import static java.lang.Boolean.TRUE;
 import static java.lang.System.setProperty;
+import static org.agrona.UnsafeAccess.UNSAFE;
 import static org.lmdbjava.DbiFlags.MDB_CREATE;
 import static org.lmdbjava.DbiFlags.MDB_INTEGERKEY;
 import static org.lmdbjava.Env.DISABLE_CHECKS_PROP;
 import static org.lmdbjava.Env.create;
+import static org.lmdbjava.EnvFlags.MDB_NORDAHEAD;
 import static org.lmdbjava.EnvFlags.MDB_NOSYNC;
+import static org.lmdbjava.EnvFlags.MDB_NOTLS;
 import static org.lmdbjava.EnvFlags.MDB_WRITEMAP;
+import static org.lmdbjava.bench.LibC.MADV_RANDOM;
+import static org.lmdbjava.bench.LibC.MADV_SEQUENTIAL;
+import static org.lmdbjava.bench.LibC.MADV_WILLNEED;
+import static org.lmdbjava.bench.StoreStats.BYTES;
+import static org.lmdbjava.bench.StoreStats.PAGES;
+import static org.lmdbjava.bench.StoreStats.record;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
 
 import java.io.IOException;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.stream.LongStream;
 
 import org.lmdbjava.BufferProxy;
 import org.lmdbjava.Dbi;
 import org.lmdbjava.DbiFlags;
 import org.lmdbjava.Env;
 import org.lmdbjava.EnvFlags;
+import org.lmdbjava.EnvInfo;
+import org.lmdbjava.Stat;
+import org.lmdbjava.Txn;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.infra.BenchmarkParams;
@@ -55,10 +69,51 @@ public class CommonLmdbJava<T> extends Common {
 
   static final int POSIX_MODE = 664;
 
+  private static final int PAGE_SIZE = 4_096;
+
+  /**
+   * Map space reserved for pages that readers keep from reuse while a writer
+   * commits. A commit's freed pages are only recycled once every reader has
+   * moved past it, so a reader descheduled mid-lookup lets the writer consume
+   * fresh pages for its whole time slice.
+   */
+  static final long READER_LAG_MAP_SIZE = 1L << 30;
+
   BufferProxy<T> bufferProxy;
   Dbi<T> db;
   Env<T> env;
 
+  /**
+   * Flags the environment is opened with by {@link #openStore()}.
+   */
+  EnvFlags[] openFlags;
+
+  /**
+   * Reader slots the environment is opened with by {@link #openStore()}.
+   */
+  int readers;
+
+  /**
+   * Access hint applied to the mapped data file before each iteration: "none",
+   * the <code>madvise</code> advice "random", "sequential" or "willneed", or
+   * "touch" to read one byte of every page from all available processors.
+   */
+  @Param("none")
+  String mapAdvice;
+
+  /**
+   * Whether the OS may read ahead of faulted pages. False sets
+   * {@link EnvFlags#MDB_NORDAHEAD}, which helps random reads of databases
+   * larger than memory.
+   */
+  @Param("true")
+  boolean readAhead;
+
+  /**
+   * Total of the bytes read by "touch" {@link #mapAdvice}, so they are used.
+   */
+  long touched;
+
   /**
    * Whether {@link EnvFlags#MDB_WRITEMAP} is used.
    */
@@ -80,40 +135,159 @@ public class CommonLmdbJava<T> extends Common {
   }
 
   static final EnvFlags[] envFlags(final boolean writeMap, final boolean sync) {
+    return envFlags(writeMap, sync, true);
+  }
+
+  static final EnvFlags[] envFlags(final boolean writeMap, final boolean sync,
+                                   final boolean readAhead) {
     final Set<EnvFlags> envFlagSet = new HashSet<>();
+    // read txns belong to the state holding them, not the JMH thread that
+    // happened to run its @Setup (the shared Reader may be set up by any thread)
+    envFlagSet.add(MDB_NOTLS);
     if (writeMap) {
       envFlagSet.add(MDB_WRITEMAP);
     }
     if (!sync) {
       envFlagSet.add(MDB_NOSYNC);
     }
+    if (!readAhead) {
+      envFlagSet.add(MDB_NORDAHEAD);
+    }
     final EnvFlags[] envFlags = new EnvFlags[envFlagSet.size()];
     envFlagSet.toArray(envFlags);
     return envFlags;
   }
 
-  static final long mapSize(final int num, final int valSize) {
+  /**
+   * Largest value kept in a leaf page with a key of the given size, assuming
+   * 4 KB pages. LMDB moves larger values to overflow pages, which a put frees
+   * and replaces with fresh, uninitialised pages rather than updating.
+   */
+  static final int maxInlineValSize(final int keySize) {
+    // (page size - page header) / MDB_MINKEYS - index slot - node header
+    return ((PAGE_SIZE - 16) / 2 & -2) - Short.BYTES - 8 - keySize;
+  }
+
+  /**
+   * Rejects the "rmwInPlace" benchmark for values on overflow pages, which it
+   * cannot update in place.
+   *
+   * @param b       benchmark being set up
+   * @param keySize key length in bytes
+   * @param valSize value length in bytes
+   */
+  static final void checkInPlace(final BenchmarkParams b, final int keySize,
+                                 final int valSize) {
+    if (b.getBenchmark().endsWith(".rmwInPlace")
+        && valSize > maxInlineValSize(keySize)) {
+      throw new IllegalArgumentException("rmwInPlace needs valSize <= "
+          + maxInlineValSize(keySize) + " to stay off overflow pages");
+    }
+  }
+
+  static final long mapSize(final long num, final int valSize) {
     return num * ((long) valSize) * 32L / 10L;
   }
 
+  /**
+   * Map size for a populated environment that is written to while readers
+   * are active: room for up to as many inserts as populated entries, plus
+   * {@link #READER_LAG_MAP_SIZE}.
+   */
+  static final long readWriteMapSize(final int num, final int valSize) {
+    return 2 * mapSize(num, valSize) + READER_LAG_MAP_SIZE;
+  }
+
+  /**
+   * Reader slots for the shared <code>Reader</code> transaction plus one
+   * transaction per benchmark thread.
+   */
+  static final int maxReaders(final BenchmarkParams b) {
+    return b.getThreads() + 1;
+  }
+
   public void setup(final BenchmarkParams b, final boolean sync) throws
       IOException {
     super.setup(b);
-    final EnvFlags[] envFlags = envFlags(writeMap, sync);
+    openFlags = envFlags(writeMap, sync, readAhead);
+    readers = maxReaders(b);
+    openStore();
+  }
+
+  @Override
+  public void teardown() throws IOException {
+    closeThreadResources();
+    reportSpaceBeforeClose();
+    reportStatsBeforeClose();
+    closeStore();
+    super.teardown();
+  }
+
+  @Override
+  void adviseAccess() throws IOException {
+    if ("none".equals(mapAdvice)) {
+      return;
+    }
+    final List<long[]> extents = mappedExtents();
+    if ("touch".equals(mapAdvice)) {
+      for (final long[] extent : extents) {
+        touched += LongStream.range(0, (extent[1] + PAGE_SIZE - 1) / PAGE_SIZE)
+            .parallel()
+            .map(page -> UNSAFE.getByte(extent[0] + page * PAGE_SIZE))
+            .sum();
+      }
+      return;
+    }
+    final int advice;
+    switch (mapAdvice) {
+      case "random":
+        advice = MADV_RANDOM;
+        break;
+      case "sequential":
+        advice = MADV_SEQUENTIAL;
+        break;
+      case "willneed":
+        advice = MADV_WILLNEED;
+        break;
+      default:
+        throw new IllegalArgumentException("Unknown mapAdvice " + mapAdvice);
+    }
+    for (final long[] extent : extents) {
+      if (LIBC.madvise(extent[0], extent[1], advice) != 0) {
+        throw new IOException("Cannot advise LMDB map of " + tmp);
+      }
+    }
+  }
+
+  @Override
+  void closeStore() {
+    env.close();
+  }
+
+  @Override
+  void openStore() {
     env = create(bufferProxy)
-        .setMapSize(mapSize(num, valSize))
+        .setMapSize(mapSize(capacity, valSize))
         .setMaxDbs(1)
-        .setMaxReaders(2)
-        .open(tmp, POSIX_MODE, envFlags);
+        .setMaxReaders(readers)
+        .open(tmp, POSIX_MODE, openFlags);
 
-    final DbiFlags[] flags = dbiFlags(intKey);
+    final DbiFlags[] flags = dbiFlags(intKey || longKey);
     db = env.openDbi("db", flags);
   }
 
   @Override
-  public void teardown() throws IOException {
-    reportSpaceBeforeClose();
-    env.close();
-    super.teardown();
+  void stats() {
+    final Stat stat;
+    try (Txn<T> txn = env.txnRead()) {
+      stat = db.stat(txn);
+    }
+    final EnvInfo info = env.info();
+    record("lmdb.depth", stat.depth, "levels");
+    record("lmdb.branchPages", stat.branchPages, PAGES);
+    record("lmdb.leafPages", stat.leafPages, PAGES);
+    record("lmdb.overflowPages", stat.overflowPages, PAGES);
+    record("lmdb.lastPage", info.lastPageNumber, PAGES);
+    record("lmdb.mapSize", info.mapSize, BYTES);
   }
 }
@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-thread key choices for the "contended" benchmark group, where a single
+ * writer keeps committing while the remaining threads run point lookups.
+ *
+ * <p>
+ * The writer overwrites the populated keys in {@link Common#keys} order (ie
+ * the same keys and values as the "write" benchmark), while every reader looks
+ * up random populated keys following {@link Common#distribution}.
+ */
+@State(Thread)
+public class Contention {
+
+  private int next;
+  private final BitsStreamGenerator rnd = new MersenneTwister();
+
+  /**
+   * Next key for a reader to look up.
+   *
+   * @param store populated store
+   * @return an existing key
+   */
+  int readKey(final Common store) {
+    return store.visits[rnd.nextInt(store.num)];
+  }
+
+  /**
+   * Next key for the writer to overwrite.
+   *
+   * @param store populated store
+   * @return an existing key
+   */
+  int writeKey(final Common store) {
+    final int key = store.keys[next];
+    next = (next + 1) % store.num;
+    return key;
+  }
+}
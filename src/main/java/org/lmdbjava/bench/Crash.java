@@ -0,0 +1,289 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Runtime.getRuntime;
+import static java.lang.System.getProperty;
+import static java.lang.System.nanoTime;
+import static java.lang.management.ManagementFactory.getRuntimeMXBean;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.readAllLines;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static java.util.regex.Pattern.quote;
+import static org.openjdk.jmh.annotations.Level.Iteration;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.runner.IterationType.MEASUREMENT;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+
+/**
+ * Driver for the "crash" benchmarks, which measure how long a store takes to
+ * recover from a writer process killed part way through its writes, and
+ * which of the writes it acknowledged survive.
+ *
+ * <p>
+ * Before every invocation a child JVM is forked to run the same benchmark with
+ * the same parameters. Its store state never returns from its setup, but puts
+ * {@link Common#keys} in order, each committed on its own with the store's
+ * sync setting, and counts the acknowledged puts in a memory-mapped progress
+ * file. A random time of up to {@link #killWindow} milliseconds after the
+ * first acknowledgement the child is sent SIGKILL (unless it has put every key
+ * by then). The timed benchmark reopens the store from the child's files,
+ * including any recovery, after which every acknowledged key is looked up.
+ * With {@link BenchStats} the puts each measurement iteration's child
+ * acknowledged, how many of those were lost and the child's puts per second
+ * are reported as "durability.*" secondary results.
+ *
+ * <p>
+ * SIGKILL only discards what the child process itself buffered. Writes handed
+ * to the kernel survive in the page cache whether or not they were synced, so
+ * this shows the price of each sync setting but not the losses to a power
+ * failure or kernel crash that the unsynced settings risk.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class Crash {
+
+  /**
+   * System property giving a forked child its progress file.
+   */
+  private static final String PROGRESS_PROP = "lmdbjava.crashProgress";
+
+  private static final int LOG_TAIL = 20;
+
+  private static final long POLL_NANOS = MILLISECONDS.toNanos(1);
+
+  private static final String PUTS = "puts";
+
+  /**
+   * Upper bound of the random delay, in milliseconds, between the child's
+   * first acknowledged put and its kill.
+   */
+  @Param("1000")
+  int killWindow;
+
+  private long acked;
+  private List<String> command;
+  private File dir;
+  private long lastAcked;
+  private File log;
+  private long lost;
+  private File progress;
+  private long putNanos;
+  private long puts;
+  private boolean recording;
+  private final BitsStreamGenerator rnd = new MersenneTwister();
+
+  /**
+   * Writes the store until killed if this is a forked child, which never
+   * returns. Otherwise closes the store and prepares the command line of the
+   * children.
+   *
+   * @param <T>   a store state
+   * @param store opened by {@link Common#setup(BenchmarkParams)}
+   * @param b     the benchmark being set up
+   * @throws IOException if the store failed
+   */
+  <T extends Common & KvStore> void setup(final T store,
+                                          final BenchmarkParams b)
+      throws IOException {
+    final String childProgress = getProperty(PROGRESS_PROP);
+    if (childProgress != null) {
+      write(store, new File(childProgress));
+    }
+    final File scratch = store.tmp.getParentFile();
+    final File childTmp = new File(scratch, "crash");
+    if (!childTmp.mkdirs()) {
+      throw new IllegalStateException("Cannot mkdir " + childTmp);
+    }
+    // the child's Common#setup uses the same layout below its java.io.tmpdir
+    dir = new File(new File(childTmp, scratch.getName()), store.tmp.getName());
+    log = new File(scratch, "crash.log");
+    progress = new File(scratch, "crash.progress");
+    command = command(b, childTmp, progress);
+    store.closeForCrash(dir);
+  }
+
+  /**
+   * Forks a child to write the store and kills it at a random point.
+   *
+   * @param <T>   a store state
+   * @param store to hand to the child
+   * @throws IOException if the child could not be run
+   */
+  <T extends Common & KvStore> void kill(final T store) throws IOException {
+    store.closeForCrash(dir);
+    try (FileChannel ch = FileChannel.open(progress.toPath(), CREATE, READ,
+                                           WRITE, TRUNCATE_EXISTING)) {
+      final MappedByteBuffer count = ch.map(READ_WRITE, 0, Long.BYTES);
+      final Process child = new ProcessBuilder(command)
+          .redirectErrorStream(true)
+          .redirectOutput(log)
+          .start();
+      while (count.getLong(0) == 0) {
+        if (!child.isAlive()) {
+          throw new IllegalStateException("Crash child failed:\n"
+                                          + tail(log));
+        }
+        parkNanos(POLL_NANOS);
+      }
+      final long first = count.getLong(0);
+      final long start = nanoTime();
+      try {
+        child.waitFor(rnd.nextInt(killWindow), MILLISECONDS);
+        final long elapsed = nanoTime() - start;
+        child.destroyForcibly().waitFor();
+        lastAcked = count.getLong(0);
+        if (recording) {
+          acked += lastAcked;
+          puts += lastAcked - first;
+          putNanos += elapsed;
+        }
+      } catch (final InterruptedException ex) {
+        child.destroyForcibly();
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted waiting for crash child", ex);
+      }
+    }
+  }
+
+  /**
+   * Records the acknowledged puts, lost puts and puts per second of a
+   * measurement iteration's children.
+   */
+  @TearDown(Iteration)
+  public void report() {
+    if (!recording) {
+      return;
+    }
+    BenchStats.record("durability.acked", acked, PUTS);
+    BenchStats.record("durability.lost", lost, PUTS);
+    BenchStats.record("durability.putsPerSecond", putNanos == 0 ? 0
+                      : (double) puts * SECONDS.toNanos(1) / putNanos,
+                      "puts/s");
+  }
+
+  @Setup(Iteration)
+  public void setup(final IterationParams i) {
+    recording = i.getType() == MEASUREMENT;
+    acked = 0;
+    lost = 0;
+    putNanos = 0;
+    puts = 0;
+  }
+
+  /**
+   * Looks up every key the last killed child acknowledged.
+   *
+   * @param store reopened from the child's files
+   * @throws IOException if the store failed
+   */
+  void verify(final Common store) throws IOException {
+    long missing = 0;
+    for (int i = 0; i < lastAcked; i++) {
+      if (!store.contains(store.keys[i])) {
+        missing++;
+      }
+    }
+    if (recording) {
+      lost += missing;
+    }
+  }
+
+  private static List<String> command(final BenchmarkParams b,
+                                      final File childTmp,
+                                      final File progress) {
+    final List<String> cmd = new ArrayList<>();
+    cmd.add(Paths.get(getProperty("java.home"), "bin", "java").toString());
+    cmd.addAll(getRuntimeMXBean().getInputArguments());
+    cmd.add("-Djava.io.tmpdir=" + childTmp);
+    cmd.add("-D" + PROGRESS_PROP + "=" + progress);
+    cmd.add("-cp");
+    cmd.add(getProperty("java.class.path"));
+    cmd.add(Main.class.getName());
+    cmd.add("^" + quote(b.getBenchmark()) + "$");
+    // in-process, so the child is the JVM that gets killed
+    cmd.add("-f");
+    cmd.add("0");
+    cmd.add("-bm");
+    cmd.add(b.getMode().shortLabel());
+    cmd.add("-wi");
+    cmd.add("0");
+    cmd.add("-i");
+    cmd.add("1");
+    for (final String key : b.getParamsKeys()) {
+      cmd.add("-p");
+      cmd.add(key + "=" + b.getParam(key));
+    }
+    return cmd;
+  }
+
+  private static String tail(final File file) throws IOException {
+    final List<String> lines = readAllLines(file.toPath(), UTF_8);
+    return String.join("\n", lines.subList(Math.max(0, lines.size() - LOG_TAIL),
+                                           lines.size()));
+  }
+
+  /**
+   * Puts every key, publishing the count acknowledged so far, then halts as
+   * abruptly as a killed process would exit.
+   */
+  private static <T extends Common & KvStore> void write(final T store,
+                                                         final File file)
+      throws IOException {
+    try (FileChannel ch = FileChannel.open(file.toPath(), READ, WRITE)) {
+      final MappedByteBuffer count = ch.map(READ_WRITE, 0, Long.BYTES);
+      for (int i = 0; i < store.keys.length; i++) {
+        store.put(store.keys[i]);
+        count.putLong(0, i + 1);
+      }
+    }
+    getRuntime().halt(0);
+  }
+}
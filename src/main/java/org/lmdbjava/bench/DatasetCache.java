@@ -0,0 +1,263 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.SPARSE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static jnr.posix.POSIXFactory.getPOSIX;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import jnr.posix.POSIX;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+/**
+ * Populated store directories kept between trials and forks, so states that
+ * only read a fully written store need not write it again.
+ *
+ * <p>
+ * Each entry is keyed by the state class and every JMH parameter (including
+ * <code>keySeed</code>), so trials of different benchmark methods over the
+ * same data share one entry. Entries are cloned file by file using the
+ * cheapest mechanism available: a hard link where the store never rewrites a
+ * file in place, otherwise a reflink on copy-on-write filesystems (Btrfs, XFS),
+ * otherwise a sparse copy. Random values come from the JVM that first wrote
+ * the entry.
+ *
+ * <p>
+ * The cache is enabled with <code>-Dlmdbjava.datasetCache=true</code> and
+ * lives within the scratch directory, so clones stay on one filesystem.
+ * Delete it to discard stale entries (eg after changing a store's format).
+ */
+final class DatasetCache {
+
+  /**
+   * System property enabling the cache.
+   */
+  static final String PROPERTY = "lmdbjava.datasetCache";
+
+  private static final int HASH_CHARS = 16;
+  private static final int PERMISSIONS = LibC.S_IRUSR | LibC.S_IWUSR
+                                             | LibC.S_IRGRP | LibC.S_IROTH;
+  private static final POSIX POSIX = getPOSIX();
+  private static final int SPARSE_BLOCK = 65_536;
+
+  private DatasetCache() {
+  }
+
+  /**
+   * Whether the cache is enabled for this JVM.
+   *
+   * @return true if {@link #PROPERTY} is set to true
+   */
+  static boolean enabled() {
+    return Boolean.getBoolean(PROPERTY);
+  }
+
+  /**
+   * Locates the entry for a state and its parameters, which may not exist.
+   *
+   * @param root  cache directory
+   * @param state state that populates the store
+   * @param b     parameters of the trial
+   * @return entry directory
+   */
+  static File entry(final File root, final Object state,
+                    final BenchmarkParams b) {
+    Class<?> type = state.getClass();
+    // skip the subclasses JMH generates
+    while (type.getName().contains("_jmhType")) {
+      type = type.getSuperclass();
+    }
+    final StringBuilder key = new StringBuilder(type.getName());
+    for (final String param : b.getParamsKeys()) {
+      key.append('\n').append(param).append('=').append(b.getParam(param));
+    }
+    final String store = type.getEnclosingClass() == null
+                          ? type.getSimpleName()
+                          : type.getEnclosingClass().getSimpleName() + "."
+                                + type.getSimpleName();
+    return new File(root, store + "-" + hash(key.toString()));
+  }
+
+  /**
+   * Clones an entry into an empty store directory.
+   *
+   * @param entry from {@link #entry(File, Object, BenchmarkParams)}
+   * @param dest  empty store directory
+   * @param link  whether the store never rewrites its files in place
+   * @return true if the entry existed and was cloned
+   * @throws IOException if the clone failed
+   */
+  static boolean restore(final File entry, final File dest, final boolean link)
+      throws IOException {
+    if (!entry.isDirectory()) {
+      return false;
+    }
+    cloneTree(entry.toPath(), dest.toPath(), link);
+    return true;
+  }
+
+  /**
+   * Saves a closed store directory as an entry. The entry appears atomically,
+   * so a concurrent save of the same entry simply loses.
+   *
+   * @param src   closed store directory
+   * @param entry from {@link #entry(File, Object, BenchmarkParams)}
+   * @param link  whether the store never rewrites its files in place
+   * @throws IOException if the save failed
+   */
+  static void save(final File src, final File entry, final boolean link)
+      throws IOException {
+    final Path root = entry.getParentFile().toPath();
+    Files.createDirectories(root);
+    final Path staging = Files.createTempDirectory(root, entry.getName() + ".");
+    try {
+      cloneTree(src.toPath(), staging, link);
+      Files.move(staging, entry.toPath(), ATOMIC_MOVE);
+    } catch (final IOException ex) {
+      delete(staging.toFile());
+      if (!entry.isDirectory()) {
+        throw ex;
+      }
+    }
+  }
+
+  private static void cloneFile(final Path src, final Path dst,
+                                final boolean link) throws IOException {
+    if (link) {
+      Files.createLink(dst, src);
+    } else if (!reflink(src, dst)) {
+      sparseCopy(src, dst);
+    }
+  }
+
+  private static void cloneTree(final Path src, final Path dst,
+                                final boolean link) throws IOException {
+    final File[] files = src.toFile().listFiles();
+    if (files == null) {
+      throw new IOException("Cannot list " + src);
+    }
+    for (final File f : files) {
+      final Path target = dst.resolve(f.getName());
+      if (f.isDirectory()) {
+        Files.createDirectory(target);
+        cloneTree(f.toPath(), target, link);
+      } else {
+        cloneFile(f.toPath(), target, link);
+      }
+    }
+  }
+
+  private static void delete(final File file) throws IOException {
+    final File[] files = file.listFiles();
+    if (files != null) {
+      for (final File f : files) {
+        delete(f);
+      }
+    }
+    Files.delete(file.toPath());
+  }
+
+  private static String hash(final String key) {
+    try {
+      final byte[] digest = MessageDigest.getInstance("SHA-256")
+          .digest(key.getBytes(UTF_8));
+      final StringBuilder sb = new StringBuilder(HASH_CHARS);
+      for (int i = 0; i < HASH_CHARS / 2; i++) {
+        sb.append(String.format("%02x", digest[i]));
+      }
+      return sb.toString();
+    } catch (final NoSuchAlgorithmException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  private static boolean isZero(final ByteBuffer buf) {
+    for (int i = buf.position(); i < buf.limit(); i++) {
+      if (buf.get(i) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean reflink(final Path src, final Path dst) {
+    final int in = POSIX.open(src.toString(), LibC.O_RDONLY, 0);
+    if (in < 0) {
+      return false;
+    }
+    try {
+      final int out = POSIX.open(dst.toString(),
+                                 LibC.O_CREAT | LibC.O_EXCL | LibC.O_WRONLY,
+                                 PERMISSIONS);
+      if (out < 0) {
+        return false;
+      }
+      final boolean cloned = Common.LIBC.ioctl(out, LibC.FICLONE, in) == 0;
+      POSIX.close(out);
+      if (!cloned) {
+        POSIX.unlink(dst.toString());
+      }
+      return cloned;
+    } finally {
+      POSIX.close(in);
+    }
+  }
+
+  private static void sparseCopy(final Path src, final Path dst)
+      throws IOException {
+    final ByteBuffer buf = ByteBuffer.allocateDirect(SPARSE_BLOCK);
+    try (FileChannel in = FileChannel.open(src, READ);
+         FileChannel out = FileChannel.open(dst, CREATE_NEW, WRITE, SPARSE)) {
+      final long size = in.size();
+      for (long pos = 0; pos < size; pos += buf.limit()) {
+        buf.clear();
+        int read;
+        do {
+          read = in.read(buf, pos + buf.position());
+        } while (read > 0 && buf.hasRemaining());
+        buf.flip();
+        if (!isZero(buf)) {
+          while (buf.hasRemaining()) {
+            out.write(buf, pos + buf.position());
+          }
+          buf.rewind();
+        }
+      }
+      if (out.size() < size) {
+        // trailing hole
+        out.write(ByteBuffer.allocate(1), size - 1);
+      }
+    }
+  }
+}
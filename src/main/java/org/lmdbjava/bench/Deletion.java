@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Share of a populated store's keys removed by the "delete" and
+ * "deleteThenReinsert" benchmarks, as a retention job would remove them.
+ *
+ * <p>
+ * The deleted keys are the first {@link #deleteRatio} of {@link Common#keys},
+ * ie the oldest entries in insertion order. Each key is deleted (and later
+ * reinserted) by a single {@link KvStore} operation. The store's space is
+ * published to {@link DiskStats} once populated ("populated", by the deleting
+ * state's setup), once the keys are deleted and committed ("afterDelete") and
+ * once they are reinserted and committed ("afterReinsert"). This shows whether
+ * freed space is returned, reused or only reclaimed by a later compaction.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class Deletion {
+
+  /**
+   * Fraction of the keys deleted, between 0 and 1.
+   */
+  @Param("0.5")
+  double deleteRatio;
+
+  /**
+   * Deletes the oldest {@link #deleteRatio} of the store's keys.
+   *
+   * @param <T>   a store state
+   * @param store populated store
+   * @throws IOException if the store failed
+   */
+  <T extends Common & KvStore> void delete(final T store) throws IOException {
+    final int count = count(store);
+    for (int i = 0; i < count; i++) {
+      store.delete(store.keys[i]);
+    }
+    store.commit();
+    store.reportSpaceUsed(store.tmp, "afterDelete");
+  }
+
+  /**
+   * Puts back the keys removed by {@link #delete(Common)}.
+   *
+   * @param <T>   a store state
+   * @param store store the keys were deleted from
+   * @throws IOException if the store failed
+   */
+  <T extends Common & KvStore> void reinsert(final T store)
+      throws IOException {
+    final int count = count(store);
+    for (int i = 0; i < count; i++) {
+      store.put(store.keys[i]);
+    }
+    store.commit();
+    store.reportSpaceUsed(store.tmp, "afterReinsert");
+  }
+
+  private int count(final Common store) {
+    return (int) (store.keys.length * deleteRatio);
+  }
+}
@@ -0,0 +1,234 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Long.parseLong;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.Files.readAllLines;
+import static org.lmdbjava.bench.StoreStats.BYTES;
+import static org.openjdk.jmh.results.AggregationPolicy.AVG;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler that reports disk space and device IO as secondary results.
+ * Enable it with <code>-prof org.lmdbjava.bench.DiskStats</code>.
+ *
+ * <ul>
+ * <li><code>disk.beforeClose</code>, <code>disk.afterClose</code>, (LmdbJava
+ * Agrona <code>readKey</code> only) <code>disk.compacted</code> and (the
+ * {@link Deletion} benchmarks only) <code>disk.populated</code>,
+ * <code>disk.afterDelete</code> and <code>disk.afterReinsert</code>: the actual
+ * on-disk space of the store, as published by {@link Common}. This is not the
+ * "apparent" size (given sparse files are typical), but the allocated blocks.
+ * <li><code>disk.read</code> and <code>disk.written</code>: bytes the whole
+ * JVM (including any store background threads) caused to be read from or
+ * written to storage during the iteration, per <code>/proc/self/io</code>.
+ * Writes to files deleted before writeback are not counted.
+ * <li><code>disk.readAmplification</code> and
+ * <code>disk.writeAmplification</code>: those bytes divided by the logical
+ * key and value bytes the iteration read (<code>read*</code> benchmarks) or
+ * wrote (<code>write*</code>, <code>rmw*</code> and <code>update</code>
+ * benchmarks), counting one entry per operation for <code>writeMt</code> and
+ * the <code>*Op</code> benchmarks and <code>scanLength</code> per seek for
+ * <code>readRange</code>. The <code>contended</code> group has no ratio.
+ * </ul>
+ *
+ * <p>
+ * Reads served from the page cache are not device reads, so read
+ * amplification is only meaningful when the store does not fit in memory.
+ */
+public final class DiskStats implements InternalProfiler {
+
+  private static final AtomicBoolean ENABLED = new AtomicBoolean();
+  private static final String PREFIX = "·disk.";
+  private static final Path PROC_IO = Paths.get("/proc/self/io");
+  private static final String RATIO = "ratio";
+
+  /**
+   * Latest space results, which are retained for the rest of the trial (eg a
+   * store compacted during setup is reported by every iteration).
+   */
+  private static final Map<String, ScalarResult> SPACE_RESULTS
+      = new ConcurrentSkipListMap<>();
+
+  private long[] ioBefore;
+
+  /**
+   * Whether this profiler is collecting statistics in the current JVM.
+   *
+   * @return true if stores should publish the space they use
+   */
+  static boolean active() {
+    return ENABLED.get();
+  }
+
+  /**
+   * Records the space currently used by the store.
+   *
+   * @param desc  point at which the space was measured (eg "afterClose")
+   * @param bytes allocated bytes
+   */
+  static void space(final String desc, final long bytes) {
+    final String label = PREFIX + desc;
+    SPACE_RESULTS.put(label, new ScalarResult(label, bytes, BYTES, AVG));
+  }
+
+  /**
+   * Entries each benchmark operation reads or writes, or 0 if the benchmark
+   * has no amplification ratio. The "contended" group is excluded, as its
+   * readers and writer share the iteration's device IO and JMH counts their
+   * operations together, so neither ratio has a denominator.
+   */
+  private static long entriesPerOp(final BenchmarkParams b, final String m) {
+    switch (m) {
+      case "readKeyOp":
+      case "writeMt":
+      case "writeOp":
+        return 1;
+      case "readRange":
+        // Range.seeks() starting points, each followed by scanLength entries
+        final long scanLength = parseLong(b.getParam("scanLength"));
+        return Math.max(1, parseLong(b.getParam("num")) / scanLength)
+                   * scanLength;
+      case "writeScale":
+        return parseLong(b.getParam("scaleStep"));
+      case "readCrc":
+      case "readKey":
+      case "readKeyMt":
+      case "readMissing":
+      case "readRev":
+      case "readSeq":
+      case "readSeqMt":
+      case "readXxh64":
+      case "rmwGetPut":
+      case "rmwInPlace":
+      case "update":
+      case "write":
+        return parseLong(b.getParam("num"));
+      default:
+        return 0;
+    }
+  }
+
+  private static long entrySize(final BenchmarkParams b, final String m) {
+    final long keySize;
+    if ("writeScale".equals(m)) {
+      keySize = Long.BYTES;
+    } else {
+      keySize = Boolean.parseBoolean(b.getParam("intKey"))
+                    ? Integer.BYTES : Common.STRING_KEY_LENGTH;
+    }
+    return keySize + Integer.parseInt(b.getParam("valSize"));
+  }
+
+  /**
+   * Reads the cumulative storage IO of this process.
+   *
+   * @return bytes read and (net of cancelled writes) written, or null if
+   *         unavailable
+   */
+  @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+  private static long[] io() {
+    final long[] io = new long[2];
+    try {
+      for (final String line : readAllLines(PROC_IO, US_ASCII)) {
+        final String[] kv = line.split(":\\s*");
+        switch (kv[0]) {
+          case "read_bytes":
+            io[0] = parseLong(kv[1]);
+            break;
+          case "write_bytes":
+            io[1] += parseLong(kv[1]);
+            break;
+          case "cancelled_write_bytes":
+            io[1] -= parseLong(kv[1]);
+            break;
+          default:
+            break;
+        }
+      }
+    } catch (final IOException ex) {
+      return null;
+    }
+    return io;
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      final BenchmarkParams benchmarkParams,
+      final IterationParams iterationParams,
+      final IterationResult result) {
+    final Collection<ScalarResult> results = new ArrayList<>(SPACE_RESULTS.values());
+    final long[] ioAfter = io();
+    if (ioBefore == null || ioAfter == null) {
+      return results;
+    }
+    final long read = ioAfter[0] - ioBefore[0];
+    final long written = ioAfter[1] - ioBefore[1];
+    results.add(new ScalarResult(PREFIX + "read", read, BYTES, AVG));
+    results.add(new ScalarResult(PREFIX + "written", written, BYTES, AVG));
+
+    final String bench = benchmarkParams.getBenchmark();
+    final String m = bench.substring(bench.lastIndexOf('.') + 1);
+    final double logical = (double) result.getMetadata().getAllOps()
+                               * entriesPerOp(benchmarkParams, m)
+                               * entrySize(benchmarkParams, m);
+    if (logical == 0) {
+      return results;
+    }
+    if (m.startsWith("read")) {
+      results.add(new ScalarResult(PREFIX + "readAmplification",
+                                   read / logical, RATIO, AVG));
+    } else if (m.startsWith("write") || m.startsWith("rmw")
+               || "update".equals(m)) {
+      results.add(new ScalarResult(PREFIX + "writeAmplification",
+                                   written / logical, RATIO, AVG));
+    }
+    return results;
+  }
+
+  @Override
+  public void beforeIteration(final BenchmarkParams benchmarkParams,
+                              final IterationParams iterationParams) {
+    ENABLED.set(true);
+    ioBefore = io();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Disk space, device IO and read/write amplification";
+  }
+}
@@ -0,0 +1,85 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+
+/**
+ * Progress of a "writeScale" benchmark, which grows a store by
+ * {@link #scaleStep} entries per single-shot iteration. Each iteration's time
+ * therefore shows the cost of appending at that database size, up to billions
+ * of entries with enough iterations.
+ *
+ * <p>
+ * Keys are 8 byte longs streamed from a {@link KeySource} (so no key set is
+ * held in memory) and {@link Common#intKey} is ignored.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class Growth {
+
+  /**
+   * Entries appended by each iteration.
+   */
+  @Param("100000000")
+  long scaleStep;
+
+  /**
+   * Entries once every warmup and measurement iteration has run, which stores
+   * that must be sized up front are sized for.
+   */
+  long total;
+
+  private long written;
+
+  @Setup(Trial)
+  public void setup(final BenchmarkParams b) {
+    total = scaleStep * (invocations(b.getWarmup())
+                             + invocations(b.getMeasurement()));
+  }
+
+  /**
+   * Claims the next step of key positions.
+   *
+   * @return the first position of the step
+   */
+  long next() {
+    final long from = written;
+    written += scaleStep;
+    return from;
+  }
+
+  private static long invocations(final IterationParams iterations) {
+    return (long) iterations.getCount() * iterations.getBatchSize();
+  }
+}
@@ -0,0 +1,128 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Double.parseDouble;
+
+import org.apache.commons.math3.distribution.ZipfDistribution;
+import org.apache.commons.math3.random.RandomGenerator;
+
+/**
+ * Key popularity distributions, in the style of YCSB's request distributions.
+ *
+ * <p>
+ * A distribution is specified as one of:
+ * <ul>
+ * <li><code>insertion</code>: every key exactly once, in insertion order</li>
+ * <li><code>uniform</code>: every key equally likely</li>
+ * <li><code>zipfian[:theta]</code>: the earliest inserted keys are the most
+ * popular, with skew <code>theta</code> (default 0.99)</li>
+ * <li><code>hotspot[:keys:ops]</code>: a hot set of the earliest inserted
+ * <code>keys</code> fraction of keys receives the <code>ops</code> fraction of
+ * operations (default 0.2:0.8)</li>
+ * <li><code>latest[:theta]</code>: zipfian, but the most recently inserted keys
+ * are the most popular</li>
+ * </ul>
+ *
+ * <p>
+ * Popularity follows insertion order, so with <code>sequential=true</code> the
+ * hot keys are adjacent, while random keys scatter them across the key space.
+ */
+final class KeyDistribution {
+
+  private static final double DEFAULT_HOT_KEYS = 0.2;
+  private static final double DEFAULT_HOT_OPS = 0.8;
+  private static final double DEFAULT_THETA = 0.99;
+
+  private KeyDistribution() {
+  }
+
+  /**
+   * Draws as many keys as there are inserted keys.
+   *
+   * @param spec distribution specification (see class documentation)
+   * @param keys inserted keys, in insertion order
+   * @param rnd  random number source
+   * @return keys to visit, in visiting order
+   */
+  @SuppressWarnings("checkstyle:ReturnCount")
+  static int[] visits(final String spec, final int[] keys,
+                      final RandomGenerator rnd) {
+    final String[] parts = spec.split(":");
+    switch (parts[0]) {
+      case "insertion":
+        return keys;
+      case "uniform":
+        return uniform(keys, rnd);
+      case "zipfian":
+        return zipfian(keys, arg(parts, 1, DEFAULT_THETA), false, rnd);
+      case "latest":
+        return zipfian(keys, arg(parts, 1, DEFAULT_THETA), true, rnd);
+      case "hotspot":
+        return hotspot(keys, arg(parts, 1, DEFAULT_HOT_KEYS),
+                       arg(parts, 2, DEFAULT_HOT_OPS), rnd);
+      default:
+        throw new IllegalArgumentException("Unknown distribution " + spec);
+    }
+  }
+
+  private static double arg(final String[] parts, final int idx,
+                            final double defaultValue) {
+    return parts.length > idx ? parseDouble(parts[idx]) : defaultValue;
+  }
+
+  private static int[] hotspot(final int[] keys, final double hotKeys,
+                               final double hotOps,
+                               final RandomGenerator rnd) {
+    final int num = keys.length;
+    final int hot = Math.max(1, Math.min(num, (int) (num * hotKeys)));
+    final int[] visits = new int[num];
+    for (int i = 0; i < num; i++) {
+      if (hot == num || rnd.nextDouble() < hotOps) {
+        visits[i] = keys[rnd.nextInt(hot)];
+      } else {
+        visits[i] = keys[hot + rnd.nextInt(num - hot)];
+      }
+    }
+    return visits;
+  }
+
+  private static int[] uniform(final int[] keys, final RandomGenerator rnd) {
+    final int[] visits = new int[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      visits[i] = keys[rnd.nextInt(keys.length)];
+    }
+    return visits;
+  }
+
+  private static int[] zipfian(final int[] keys, final double theta,
+                               final boolean latest,
+                               final RandomGenerator rnd) {
+    final int num = keys.length;
+    final ZipfDistribution zipf = new ZipfDistribution(rnd, num, theta);
+    final int[] visits = new int[num];
+    for (int i = 0; i < num; i++) {
+      final int rank = zipf.sample() - 1; // 0 is the most popular
+      visits[i] = keys[latest ? num - 1 - rank : rank];
+    }
+    return visits;
+  }
+}
@@ -0,0 +1,145 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.util.Arrays.parallelSetAll;
+
+/**
+ * Unique keys in either sequential or random order, computed from their
+ * position rather than stored.
+ *
+ * <p>
+ * Random keys come from a Feistel network keyed by a seed, which is a
+ * bijection over <code>[0, 2^bits)</code> (values outside the domain are
+ * re-encrypted until they fall inside it). The i-th key is therefore unique
+ * without remembering earlier keys, is reproducible from the seed, and can be
+ * computed independently by any thread for any range of positions.
+ */
+final class KeySource {
+
+  private static final long GOLDEN_GAMMA = 0x9E37_79B9_7F4A_7C15L;
+  private static final long MIX_1 = 0xFF51_AFD7_ED55_8CCDL;
+  private static final long MIX_2 = 0xC4CE_B9FE_1A85_EC53L;
+  private static final int MIX_SHIFT = 33;
+  private static final int ROUNDS = 4;
+
+  private final int half;
+  private final long halfMask;
+  private final long mask;
+  private final long[] roundKeys;
+
+  private KeySource(final int bits, final long... roundKeys) {
+    this.half = (bits + 1) / 2;
+    this.halfMask = (1L << half) - 1;
+    this.mask = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+    this.roundKeys = roundKeys;
+  }
+
+  /**
+   * Keys in a random order determined by the seed.
+   *
+   * @param seed to derive the permutation from
+   * @param bits size of the key domain (eg 31 for non-negative ints)
+   * @return a key source
+   */
+  static KeySource random(final long seed, final int bits) {
+    final long[] roundKeys = new long[ROUNDS];
+    long state = seed;
+    for (int i = 0; i < ROUNDS; i++) {
+      state += GOLDEN_GAMMA;
+      roundKeys[i] = mix(state);
+    }
+    return new KeySource(bits, roundKeys);
+  }
+
+  /**
+   * Keys equal to their position.
+   *
+   * @param bits size of the key domain (eg 31 for non-negative ints)
+   * @return a key source
+   */
+  static KeySource sequential(final int bits) {
+    return new KeySource(bits);
+  }
+
+  /**
+   * Computes the key at a position.
+   *
+   * @param index position, within the key domain
+   * @return the key, which no other position shares
+   */
+  long key(final long index) {
+    if ((index & ~mask) != 0) {
+      throw new IllegalArgumentException("Index outside key domain: " + index);
+    }
+    if (roundKeys.length == 0) {
+      return index;
+    }
+    long x = index;
+    do {
+      x = encrypt(x);
+    } while ((x & ~mask) != 0);
+    return x;
+  }
+
+  /**
+   * Computes consecutive int keys, splitting the work across the common
+   * fork/join pool.
+   *
+   * @param num number of keys, starting at position 0
+   * @return the keys
+   */
+  int[] keys(final int num) {
+    return keys(0, num);
+  }
+
+  /**
+   * Computes consecutive int keys, splitting the work across the common
+   * fork/join pool.
+   *
+   * @param from position of the first key
+   * @param num  number of keys
+   * @return the keys
+   */
+  int[] keys(final int from, final int num) {
+    final int[] keys = new int[num];
+    parallelSetAll(keys, i -> (int) key((long) from + i));
+    return keys;
+  }
+
+  private static long mix(final long value) {
+    long z = value;
+    z = (z ^ (z >>> MIX_SHIFT)) * MIX_1;
+    z = (z ^ (z >>> MIX_SHIFT)) * MIX_2;
+    return z ^ (z >>> MIX_SHIFT);
+  }
+
+  private long encrypt(final long x) {
+    long left = (x >>> half) & halfMask;
+    long right = x & halfMask;
+    for (final long roundKey : roundKeys) {
+      final long next = left ^ (mix(right ^ roundKey) & halfMask);
+      left = right;
+      right = next;
+    }
+    return (left << half) | right;
+  }
+}
@@ -0,0 +1,70 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Single-key operations against a populated store, used by benchmarks that
+ * interleave reads and writes (eg {@link Workload}). Each operation runs in
+ * its own transaction where the store offers transactions.
+ */
+interface KvStore {
+
+  /**
+   * Removes a key, if present.
+   *
+   * @param key to remove
+   * @throws IOException if the store failed
+   */
+  void delete(int key) throws IOException;
+
+  /**
+   * Looks up a key.
+   *
+   * @param key to find
+   * @param bh  to consume the value
+   * @throws IOException if the store failed
+   */
+  void get(int key, Blackhole bh) throws IOException;
+
+  /**
+   * Inserts or overwrites a key, with a value generated the same way as the
+   * "write" benchmark.
+   *
+   * @param key to store
+   * @throws IOException if the store failed
+   */
+  void put(int key) throws IOException;
+
+  /**
+   * Reads up to <code>count</code> entries in key order, starting from the
+   * first key equal to or greater than <code>key</code>.
+   *
+   * @param key   to seek to
+   * @param count maximum number of entries to read
+   * @param bh    to consume the values
+   * @throws IOException if the store failed
+   */
+  void scan(int key, int count, Blackhole bh) throws IOException;
+}
@@ -20,17 +20,25 @@
 
 package org.lmdbjava.bench;
 
+import static java.lang.Integer.parseInt;
+import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.fusesource.leveldbjni.JniDBFactory.factory;
 import static org.fusesource.leveldbjni.JniDBFactory.popMemoryPool;
 import static org.fusesource.leveldbjni.JniDBFactory.pushMemoryPool;
 import static org.iq80.leveldb.CompressionType.NONE;
+import static org.lmdbjava.bench.StoreStats.record;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.IOException;
 import java.util.Map.Entry;
@@ -41,9 +49,12 @@ import org.iq80.leveldb.DB;
 import org.iq80.leveldb.DBIterator;
 import org.iq80.leveldb.Options;
 import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -62,6 +73,67 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LevelDb {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final Reader r, final ThreadReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(r);
+    if (r.intKey) {
+      t.wkb.putInt(0, key);
+    } else {
+      t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+    }
+    bh.consume(r.db.get(t.wkb.byteArray()));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final Reader r, final Contention c)
+      throws IOException {
+    r.put(c.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void crash(final Crasher c, final Blackhole bh) throws IOException {
+    c.reopen();
+    c.get(c.keys[0], bh);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final Reader r, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(r, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final Reader r, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(r, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) throws IOException {
     r.crc.reset();
@@ -77,7 +149,38 @@ public class LevelDb {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) throws IOException {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.db.get(r.wkb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) throws IOException {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.wkb.putInt(0, key);
+      } else {
+        t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.db.get(t.wkb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final Reader r, final Step s, final Blackhole bh) {
+    r.get(s.readKey(r), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) throws IOException {
+    for (final int key : r.missing) {
       if (r.intKey) {
         r.wkb.putInt(0, key);
       } else {
@@ -87,6 +190,26 @@ public class LevelDb {
     }
   }
 
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh)
+      throws IOException {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      try (DBIterator iterator = r.db.iterator()) {
+        iterator.seek(r.wkb.byteArray());
+        for (int i = 0; i < g.scanLength && iterator.hasNext(); i++) {
+          bh.consume(iterator.next().getValue());
+        }
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) throws IOException {
     try (DBIterator iterator = r.db.iterator()) {
@@ -107,6 +230,12 @@ public class LevelDb {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final Reader r, final Blackhole bh) throws IOException {
+    // iterators are created per call, so the shared Reader is thread-safe
+    readSeq(r, bh);
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) throws IOException {
     long result = 0;
@@ -120,17 +249,66 @@ public class LevelDb {
     bh.consume(result);
   }
 
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final Reader r) {
+    for (final int key : r.visits) {
+      r.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) throws IOException {
-    w.write(w.batchSize);
+    w.write(w.putsPerCommit(1_000_000));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final Reader r, final Step s) {
+    r.put(s.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g)
+      throws IOException {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
   }
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonLevelDb extends Common {
+  public static class CommonLevelDb extends Common implements KvStore {
+
+    static final int MEMORY_POOL_SIZE = 1_024 * 512;
+
+    /**
+     * Levels of a LevelDB database (<code>config::kNumLevels</code>).
+     */
+    static final int NUM_LEVELS = 7;
 
     DB db;
 
+    /**
+     * Whether this state pushed a (thread-local) JNI memory pool.
+     */
+    boolean memoryPool;
+
+    /**
+     * Options of {@link #put(int)}.
+     */
+    WriteOptions writeOptions;
+
     /**
      * Writable key buffer. Backed by a plain byte[] for LevelDB API ease.
      */
@@ -146,7 +324,32 @@ public class LevelDb {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
-      pushMemoryPool(1_024 * 512);
+      writeOptions = new WriteOptions();
+      // the pool is thread-local, but -t > 1 may tear down on another thread
+      memoryPool = b.getThreads() == 1;
+      if (memoryPool) {
+        pushMemoryPool(MEMORY_POOL_SIZE);
+      }
+      openStore();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      closeStore();
+      if (memoryPool) {
+        popMemoryPool();
+      }
+      super.teardown();
+    }
+
+    @Override
+    void closeStore() throws IOException {
+      db.close();
+    }
+
+    @Override
+    void openStore() throws IOException {
       final Options options = new Options();
       options.createIfMissing(true);
       options.compressionType(NONE);
@@ -154,15 +357,20 @@ public class LevelDb {
     }
 
     @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      db.close();
-      popMemoryPool();
-      super.teardown();
+    void stats() {
+      int levels = 0;
+      for (int level = 0; level < NUM_LEVELS; level++) {
+        final String files = db.getProperty("leveldb.num-files-at-level"
+                                                + level);
+        if (files != null && parseInt(files) > 0) {
+          levels++;
+        }
+      }
+      record("leveldb.levels", levels, "levels");
     }
 
     @SuppressWarnings("PMD.CloseResource")
-    void write(final int batchSize) throws IOException {
+    void write(final int perCommit) throws IOException {
       final int rndByteMax = RND_MB.length - valSize;
       int rndByteOffset = 0;
       WriteBatch batch = db.createWriteBatch();
@@ -183,15 +391,132 @@ public class LevelDb {
           wvb.putInt(0, key);
         }
         batch.put(wkb.byteArray(), wvb.byteArray());
-        if (i % batchSize == 0) {
-          db.write(batch);
+        if ((i + 1) % perCommit == 0) {
+          db.write(batch, writeOptions);
           batch.close();
           batch = db.createWriteBatch();
         }
       }
-      db.write(batch); // possible partial batch
+      db.write(batch, writeOptions); // possible partial batch
       batch.close();
     }
+
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      db.delete(wkb.byteArray(), writeOptions);
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      bh.consume(db.get(wkb.byteArray()));
+    }
+
+    @Override
+    boolean contains(final int key) {
+      putKey(key);
+      return db.get(wkb.byteArray()) != null;
+    }
+
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      putVal(key);
+      db.put(wkb.byteArray(), wvb.byteArray(), writeOptions);
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh)
+        throws IOException {
+      putKey(key);
+      try (DBIterator iterator = db.iterator()) {
+        iterator.seek(wkb.byteArray());
+        for (int i = 0; i < count && iterator.hasNext(); i++) {
+          bh.consume(iterator.next().getValue());
+        }
+      }
+    }
+
+    private void putKey(final int key) {
+      if (intKey) {
+        wkb.putInt(0, key, LITTLE_ENDIAN);
+      } else {
+        wkb.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+
+    private void putVal(final int key) {
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        wvb.putInt(0, key);
+      }
+    }
+  }
+
+  /**
+   * Written by a child process that is killed part way through (see
+   * {@link Crash}).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Crasher extends CommonLevelDb {
+
+    /**
+     * Whether each put is synced to disk (see {@link WriteOptions#sync}).
+     */
+    @Param("false")
+    boolean sync;
+
+    private Crash crash;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Crash c)
+        throws IOException {
+      super.setup(b);
+      writeOptions.sync(sync);
+      crash = c;
+      c.setup(this, b);
+    }
+
+    @Setup(Invocation)
+    public void kill() throws IOException {
+      crash.kill(this);
+    }
+
+    @TearDown(Invocation)
+    public void verify() throws IOException {
+      crash.verify(this);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonLevelDb {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write(num);
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
@@ -200,8 +525,43 @@ public class LevelDb {
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
+      linkable = true;
+      super.setup(b);
+      if (!cached) {
+        super.write(num);
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  @State(Benchmark)
+  public static class Reopener extends CommonLevelDb {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      linkable = true;
       super.setup(b);
       super.write(num);
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
     }
 
     @TearDown(Trial)
@@ -211,17 +571,88 @@ public class LevelDb {
     }
   }
 
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte big-endian keys (which sort numerically).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonLevelDb {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      capacity = g.total;
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void append(final long from, final long to) throws IOException {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      for (long i = from; i < to; i += perCommit) {
+        final long end = Math.min(i + perCommit, to);
+        try (WriteBatch batch = db.createWriteBatch()) {
+          for (long j = i; j < end; j++) {
+            final long key = source.key(j);
+            wkb.putLong(0, key, BIG_ENDIAN);
+            if (valRandom) {
+              wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+            } else {
+              wvb.putLong(0, key);
+            }
+            batch.put(wkb.byteArray(), wvb.byteArray());
+          }
+          db.write(batch);
+        }
+      }
+    }
+  }
+
+  /**
+   * Per-thread key buffer and JNI memory pool over the shared {@link Reader}
+   * store, so the "Mt" benchmarks can run with any <code>-t</code>.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+      pushMemoryPool(CommonLevelDb.MEMORY_POOL_SIZE);
+    }
+
+    @TearDown(Trial)
+    public void teardown() {
+      popMemoryPool();
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonLevelDb {
 
-    @Param("1000000")
-    int batchSize;
+    /**
+     * Whether each write batch is synced to disk (see
+     * {@link WriteOptions#sync}).
+     */
+    @Param("false")
+    boolean sync;
 
     @Setup(Invocation)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
+      writeOptions.sync(sync);
     }
 
     @TearDown(Invocation)
@@ -0,0 +1,138 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import jnr.ffi.types.intptr_t;
+import jnr.ffi.types.off_t;
+import jnr.ffi.types.size_t;
+
+/**
+ * The few C library functions the benchmarks need that jnr-posix does not
+ * offer, bound through jnr-ffi.
+ */
+public interface LibC {
+
+  /**
+   * Linux <code>FICLONE</code> request, which shares the source file's
+   * extents with the destination file on copy-on-write filesystems.
+   */
+  long FICLONE = 0x4004_9409L;
+
+  /**
+   * Linux <code>MADV_DONTNEED</code> advice, which drops the pages of a
+   * mapping from this process (but not from the page cache).
+   */
+  int MADV_DONTNEED = 4;
+
+  /**
+   * Linux <code>MADV_RANDOM</code> advice, which disables read-ahead.
+   */
+  int MADV_RANDOM = 1;
+
+  /**
+   * Linux <code>MADV_SEQUENTIAL</code> advice, which reads ahead aggressively
+   * and frees pages soon after they are accessed.
+   */
+  int MADV_SEQUENTIAL = 2;
+
+  /**
+   * Linux <code>MADV_WILLNEED</code> advice, which reads the region ahead.
+   */
+  int MADV_WILLNEED = 3;
+
+  /**
+   * Linux <code>open</code> flag creating the file if it does not exist.
+   */
+  int O_CREAT = 0x40;
+
+  /**
+   * Linux <code>open</code> flag failing if {@link #O_CREAT} finds the file
+   * already exists.
+   */
+  int O_EXCL = 0x80;
+
+  /**
+   * Linux <code>open</code> access mode for reading only.
+   */
+  int O_RDONLY = 0;
+
+  /**
+   * Linux <code>open</code> access mode for writing only.
+   */
+  int O_WRONLY = 0x1;
+
+  /**
+   * Linux <code>POSIX_FADV_DONTNEED</code> advice, which evicts a file's clean
+   * pages from the page cache unless a process maps them.
+   */
+  int POSIX_FADV_DONTNEED = 4;
+
+  /**
+   * File mode bit granting the group read permission.
+   */
+  int S_IRGRP = 0x20;
+
+  /**
+   * File mode bit granting others read permission.
+   */
+  int S_IROTH = 0x4;
+
+  /**
+   * File mode bit granting the owner read permission.
+   */
+  int S_IRUSR = 0x100;
+
+  /**
+   * File mode bit granting the owner write permission.
+   */
+  int S_IWUSR = 0x80;
+
+  /**
+   * Device control.
+   *
+   * @param fd      open file descriptor
+   * @param request device dependent request code
+   * @param arg     request argument
+   * @return 0 on success, otherwise -1
+   */
+  int ioctl(int fd, long request, int arg);
+
+  /**
+   * Advises the kernel how a mapped region will be used.
+   *
+   * @param addr   page-aligned start of the region
+   * @param length bytes in the region
+   * @param advice advice (eg {@link #MADV_DONTNEED})
+   * @return 0 on success, otherwise -1
+   */
+  int madvise(@intptr_t long addr, @size_t long length, int advice);
+
+  /**
+   * Advises the kernel how a file will be accessed.
+   *
+   * @param fd     open file descriptor
+   * @param offset start of the range
+   * @param len    bytes in the range, or 0 for the rest of the file
+   * @param advice advice (eg {@link #POSIX_FADV_DONTNEED})
+   * @return 0 on success, otherwise an error number
+   */
+  int posix_fadvise(int fd, @off_t long offset, @off_t long len, int advice);
+}
@@ -21,24 +21,32 @@
 package org.lmdbjava.bench;
 
 import static java.lang.Boolean.TRUE;
+import static java.lang.Integer.BYTES;
 import static java.lang.System.setProperty;
 import static java.nio.ByteBuffer.allocateDirect;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.agrona.concurrent.UnsafeBuffer.DISABLE_BOUNDS_CHECKS_PROP_NAME;
 import static org.lmdbjava.CopyFlags.MDB_CP_COMPACT;
 import static org.lmdbjava.DirectBufferProxy.PROXY_DB;
 import static org.lmdbjava.GetOp.MDB_SET_KEY;
+import static org.lmdbjava.GetOp.MDB_SET_RANGE;
 import static org.lmdbjava.PutFlags.MDB_APPEND;
 import static org.lmdbjava.SeekOp.MDB_FIRST;
 import static org.lmdbjava.SeekOp.MDB_LAST;
 import static org.lmdbjava.SeekOp.MDB_NEXT;
 import static org.lmdbjava.SeekOp.MDB_PREV;
+import static org.lmdbjava.bench.Common.RND_MB;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.IOException;
 
@@ -51,6 +59,8 @@ import org.lmdbjava.Txn;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -69,6 +79,69 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbJavaAgrona {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final ReadWriter rw, final ContendedReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(rw);
+    if (rw.intKey) {
+      t.rwKey.putInt(0, key);
+    } else {
+      t.rwKey.putStringWithoutLengthUtf8(0, rw.padKey(key));
+    }
+    t.txn.reset();
+    t.txn.renew();
+    bh.consume(rw.db.get(t.txn, t.rwKey));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final ReadWriter rw, final Contention c)
+      throws IOException {
+    rw.put(c.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void crash(final Crasher c, final Blackhole bh) throws IOException {
+    c.reopen();
+    c.get(c.keys[0], bh);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final ReadWriter rw, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(rw, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final ReadWriter rw, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(rw, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -84,7 +157,40 @@ public class LmdbJavaAgrona {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        r.rwKey.putInt(0, key);
+      } else {
+        r.rwKey.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.c.get(r.rwKey, MDB_SET_KEY));
+      bh.consume(r.txn.val());
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.rwKey.putInt(0, key);
+      } else {
+        t.rwKey.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(t.c.get(t.rwKey, MDB_SET_KEY));
+      bh.consume(t.txn.val());
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final ReadWriter rw, final Step s, final Blackhole bh) {
+    rw.get(s.readKey(rw), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
       if (r.intKey) {
         r.rwKey.putInt(0, key);
       } else {
@@ -95,6 +201,24 @@ public class LmdbJavaAgrona {
     }
   }
 
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      if (r.intKey) {
+        r.rwKey.putInt(0, key);
+      } else {
+        r.rwKey.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      boolean found = r.c.get(r.rwKey, MDB_SET_RANGE);
+      for (int i = 0; found && i < g.scanLength; i++) {
+        bh.consume(r.txn.val());
+        found = r.c.seek(MDB_NEXT);
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     bh.consume(r.c.seek(MDB_LAST));
@@ -111,6 +235,14 @@ public class LmdbJavaAgrona {
     } while (r.c.seek(MDB_NEXT));
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    bh.consume(t.c.seek(MDB_FIRST));
+    do {
+      bh.consume(t.txn.val());
+    } while (t.c.seek(MDB_NEXT));
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -122,14 +254,91 @@ public class LmdbJavaAgrona {
     bh.consume(result);
   }
 
+  @Benchmark
+  public void rmwGetPut(final ReadWriter rw) {
+    rw.incrementGetPut();
+  }
+
+  @Benchmark
+  public void rmwInPlace(final ReadWriter rw) {
+    rw.incrementInPlace();
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final ReadWriter rw) {
+    for (final int key : rw.visits) {
+      rw.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  public void writeMt(final SharedWriter w, final ThreadWriter t) {
+    t.next(w);
+    if (w.groupCommit) {
+      w.coalescer.put(t.rwKey, t.rwVal).join();
+    } else {
+      try (Txn<DirectBuffer> txn = w.env.txnWrite()) {
+        w.db.put(txn, t.rwKey, t.rwVal);
+        txn.commit();
+      }
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final ReadWriter rw, final Step s) {
+    rw.put(s.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
+  /**
+   * Per-thread read transaction over the shared {@link ReadWriter}
+   * environment. It is reset and renewed before every lookup, so each lookup
+   * sees the latest commit without pinning an old snapshot. It is closed by
+   * the {@link ReadWriter} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ContendedReader {
+
+    MutableDirectBuffer rwKey;
+    Txn<DirectBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final ReadWriter rw) {
+      rwKey = new UnsafeBuffer(allocateDirect(rw.keySize).order(LITTLE_ENDIAN));
+      txn = rw.env.txnRead();
+      rw.registerThreadResource(txn);
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class LmdbJava extends CommonLmdbJava<DirectBuffer> {
+  public static class LmdbJava extends CommonLmdbJava<DirectBuffer>
+      implements KvStore {
 
     /**
      * CRC scratch (memory-mapped MDB can't return a byte[] or ByteBuffer).
@@ -159,33 +368,234 @@ public class LmdbJavaAgrona {
 
     @SuppressWarnings("PMD.NullAssignment")
     void write() {
-      try (Txn<DirectBuffer> tx = env.txnWrite()) {
-        try (Cursor<DirectBuffer> c = db.openCursor(tx);) {
-          final PutFlags flags = sequential ? MDB_APPEND : null;
-          final int rndByteMax = RND_MB.length - valSize;
-          int rndByteOffset = 0;
-          for (final int key : keys) {
-            if (intKey) {
-              rwKey.putInt(0, key);
-            } else {
-              rwKey.putStringWithoutLengthUtf8(0, padKey(key));
-            }
-            if (valRandom) {
-              rwVal.putBytes(0, RND_MB, rndByteOffset, valSize);
-              rndByteOffset += valSize;
-              if (rndByteOffset >= rndByteMax) {
-                rndByteOffset = 0;
+      final PutFlags flags = sequential ? MDB_APPEND : null;
+      final int perCommit = putsPerCommit(keys.length);
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      for (int i = 0; i < keys.length; i += perCommit) {
+        final int end = Math.min(i + perCommit, keys.length);
+        try (Txn<DirectBuffer> tx = env.txnWrite()) {
+          try (Cursor<DirectBuffer> c = db.openCursor(tx);) {
+            for (int j = i; j < end; j++) {
+              final int key = keys[j];
+              if (intKey) {
+                rwKey.putInt(0, key);
+              } else {
+                rwKey.putStringWithoutLengthUtf8(0, padKey(key));
+              }
+              if (valRandom) {
+                rwVal.putBytes(0, RND_MB, rndByteOffset, valSize);
+                rndByteOffset += valSize;
+                if (rndByteOffset >= rndByteMax) {
+                  rndByteOffset = 0;
+                }
+              } else {
+                rwVal.putInt(0, key);
               }
-            } else {
-              rwVal.putInt(0, key);
+              c.put(rwKey, rwVal, flags);
             }
-            c.put(rwKey, rwVal, flags);
           }
+          tx.commit();
+        }
+      }
+    }
+
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      try (Txn<DirectBuffer> txn = env.txnWrite()) {
+        db.delete(txn, rwKey);
+        txn.commit();
+      }
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      try (Txn<DirectBuffer> txn = env.txnRead()) {
+        bh.consume(db.get(txn, rwKey));
+      }
+    }
+
+    @Override
+    boolean contains(final int key) {
+      putKey(key);
+      try (Txn<DirectBuffer> txn = env.txnRead()) {
+        return db.get(txn, rwKey) != null;
+      }
+    }
+
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      putVal(key);
+      try (Txn<DirectBuffer> txn = env.txnWrite()) {
+        db.put(txn, rwKey, rwVal);
+        txn.commit();
+      }
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      putKey(key);
+      try (Txn<DirectBuffer> txn = env.txnRead();
+           Cursor<DirectBuffer> c = db.openCursor(txn)) {
+        boolean found = c.get(rwKey, MDB_SET_RANGE);
+        for (int i = 0; found && i < count; i++) {
+          bh.consume(txn.val());
+          found = c.seek(MDB_NEXT);
+        }
+      }
+    }
+
+    void putKey(final int key) {
+      if (intKey) {
+        rwKey.putInt(0, key);
+      } else {
+        rwKey.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+
+    private void putVal(final int key) {
+      if (valRandom) {
+        rwVal.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        rwVal.putInt(0, key);
+      }
+    }
+  }
+
+  /**
+   * Written by a child process that is killed part way through (see
+   * {@link Crash}).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Crasher extends LmdbJava {
+
+    /**
+     * Whether each commit is synced to disk, ie <code>MDB_NOSYNC</code> is not used.
+     */
+    @Param("false")
+    boolean sync;
+
+    private Crash crash;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Crash c)
+        throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, sync);
+      crash = c;
+      c.setup(this, b);
+    }
+
+    @Setup(Invocation)
+    public void kill() throws IOException {
+      crash.kill(this);
+    }
+
+    @TearDown(Invocation)
+    public void verify() throws IOException {
+      crash.verify(this);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link ReadWriter} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends LmdbJava {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      super.write();
+      env.setMapSize(readWriteMapSize(num, valSize));
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader}, but without a long-lived read transaction
+   * (which would stop LMDB reusing space freed by later writes).
+   */
+  @State(Benchmark)
+  public static class ReadWriter extends LmdbJava {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      checkInPlace(b, keySize, valSize);
+      super.write();
+      env.setMapSize(readWriteMapSize(num, valSize));
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    /**
+     * Increments a counter held in the first 8 bytes of every visited value,
+     * copying each value out with a get and back in with a put.
+     */
+    void incrementGetPut() {
+      try (Txn<DirectBuffer> tx = env.txnWrite()) {
+        for (final int key : visits) {
+          putKey(key);
+          final DirectBuffer val = db.get(tx, rwKey);
+          rwVal.putBytes(0, val, 0, valSize);
+          rwVal.putLong(0, rwVal.getLong(0) + 1);
+          db.put(tx, rwKey, rwVal);
         }
         tx.commit();
       }
     }
 
+    /**
+     * Increments a counter held in the first 8 bytes of every visited value
+     * where the value lies in the map. An <code>MDB_RESERVE</code> put of the
+     * same size on an existing key whose value sits in a leaf page returns the
+     * value's location in a page this transaction has already copied on write,
+     * with the old value intact. A value on overflow pages (see
+     * {@link CommonLmdbJava#maxInlineValSize(int)}) is instead replaced by
+     * uninitialised space, so setup rejects such value sizes for
+     * "rmwInPlace". (Writing through a value returned by a get would instead
+     * modify the committed page under <code>MDB_WRITEMAP</code>, and is
+     * unsafe.)
+     */
+    void incrementInPlace() {
+      try (Txn<DirectBuffer> tx = env.txnWrite()) {
+        try (Cursor<DirectBuffer> c = db.openCursor(tx)) {
+          for (final int key : visits) {
+            putKey(key);
+            final MutableDirectBuffer val
+                = (MutableDirectBuffer) c.reserve(rwKey, valSize);
+            val.putLong(0, val.getLong(0) + 1);
+          }
+        }
+        tx.commit();
+      }
+    }
   }
 
   @State(Benchmark)
@@ -199,10 +609,14 @@ public class LmdbJavaAgrona {
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       bufferProxy = PROXY_DB;
+      cacheable = true;
       super.setup(b, false);
-      super.write();
+      if (!cached) {
+        super.write();
+      }
       final int maxValSizeForCopy = 4_081; // 2nd copy requires *2 /tmp space
-      if (valSize <= maxValSizeForCopy && tmp.getName().contains(".readKey-")) {
+      if (valSize <= maxValSizeForCopy && DiskStats.active()
+          && tmp.getName().contains(".readKey-")) {
         env.copy(compact, MDB_CP_COMPACT);
         reportSpaceUsed(compact, "compacted");
       }
@@ -219,10 +633,211 @@ public class LmdbJavaAgrona {
     }
   }
 
+  @State(Benchmark)
+  public static class Reopener extends LmdbJava {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, false);
+      super.write();
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte <code>MDB_INTEGERKEY</code> keys.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends LmdbJava {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      bufferProxy = PROXY_DB;
+      longKey = true;
+      // the map is sparse, so leave room for pages copied on write
+      capacity = 2 * g.total;
+      super.setup(b, false);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    @SuppressWarnings("PMD.NullAssignment")
+    void append(final long from, final long to) {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      final PutFlags flags = sequential ? MDB_APPEND : null;
+      for (long i = from; i < to; i += perCommit) {
+        final long end = Math.min(i + perCommit, to);
+        try (Txn<DirectBuffer> tx = env.txnWrite()) {
+          try (Cursor<DirectBuffer> c = db.openCursor(tx)) {
+            for (long j = i; j < end; j++) {
+              final long key = source.key(j);
+              rwKey.putLong(0, key);
+              if (valRandom) {
+                rwVal.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+              } else {
+                rwVal.putLong(0, key);
+              }
+              c.put(rwKey, rwVal, flags);
+            }
+          }
+          tx.commit();
+        }
+      }
+    }
+  }
+
+  /**
+   * Populated store overwritten by many threads at once ("writeMt"), either
+   * each put in its own write transaction (so threads serialize on LMDB's
+   * writer lock and pay for one commit each) or through a
+   * {@link WriteCoalescer} that commits many threads' puts together.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class SharedWriter extends LmdbJava {
+
+    static final int RING_CAPACITY = 16 * 1_024 * 1_024;
+
+    WriteCoalescer coalescer;
+
+    /**
+     * Whether puts are group committed by a {@link WriteCoalescer}.
+     */
+    @Param("false")
+    boolean groupCommit;
+
+    /**
+     * Whether every commit is flushed to disk (ie <code>MDB_NOSYNC</code> is
+     * not used).
+     */
+    @Param("true")
+    boolean sync;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_DB;
+      super.setup(b, sync);
+      super.write();
+      if (groupCommit) {
+        coalescer = new WriteCoalescer(env, db, RING_CAPACITY);
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      if (coalescer != null) {
+        coalescer.close();
+      }
+      super.teardown();
+    }
+  }
+
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * environment, so the "Mt" benchmarks can run with any <code>-t</code>.
+   * These are closed by the {@link Reader} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Cursor<DirectBuffer> c;
+    MutableDirectBuffer rwKey;
+    Txn<DirectBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      rwKey = new UnsafeBuffer(allocateDirect(r.keySize).order(LITTLE_ENDIAN));
+      txn = r.env.txnRead();
+      c = r.db.openCursor(txn);
+      r.registerThreadResource(txn);
+      r.registerThreadResource(c);
+    }
+  }
+
+  /**
+   * Per-thread key and value buffers for "writeMt". Each thread overwrites
+   * the populated keys in {@link Common#keys} order, with random values from
+   * its own offset into {@link Common#RND_MB} (as
+   * {@link Common#nextRndByteOffset()} is not thread-safe).
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadWriter {
+
+    MutableDirectBuffer rwKey;
+    MutableDirectBuffer rwVal;
+    private int keyIndex;
+    private int rndByteOffset;
+
+    @Setup(Trial)
+    public void setup(final SharedWriter w) {
+      rwKey = new UnsafeBuffer(allocateDirect(w.keySize).order(LITTLE_ENDIAN));
+      rwVal = new UnsafeBuffer(allocateDirect(w.valSize));
+    }
+
+    void next(final SharedWriter w) {
+      final int key = w.keys[keyIndex];
+      keyIndex = (keyIndex + 1) % w.num;
+      if (w.intKey) {
+        rwKey.putInt(0, key);
+      } else {
+        rwKey.putStringWithoutLengthUtf8(0, w.padKey(key));
+      }
+      if (w.valRandom) {
+        rwVal.putBytes(0, RND_MB, rndByteOffset, w.valSize);
+        rndByteOffset += w.valSize;
+        if (rndByteOffset >= RND_MB.length - w.valSize) {
+          rndByteOffset = 0;
+        }
+      } else {
+        rwVal.putInt(0, key);
+      }
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends LmdbJava {
 
+    /**
+     * Whether each value is generated in place in the map, using
+     * <code>MDB_RESERVE</code> to obtain the destination, instead of being
+     * staged in a buffer that LMDB then copies.
+     */
+    @Param("false")
+    boolean reserve;
+
     /**
      * Whether <code>MDB_NOSYNC</code> is used.
      */
@@ -241,6 +856,37 @@ public class LmdbJavaAgrona {
     public void teardown() throws IOException {
       super.teardown();
     }
+
+    @Override
+    @SuppressWarnings("PMD.NullAssignment")
+    void write() {
+      if (!reserve) {
+        super.write();
+        return;
+      }
+      final PutFlags flags = sequential ? MDB_APPEND : null;
+      final int perCommit = putsPerCommit(keys.length);
+      for (int i = 0; i < keys.length; i += perCommit) {
+        final int end = Math.min(i + perCommit, keys.length);
+        try (Txn<DirectBuffer> tx = env.txnWrite()) {
+          try (Cursor<DirectBuffer> c = db.openCursor(tx)) {
+            for (int j = i; j < end; j++) {
+              final int key = keys[j];
+              putKey(key);
+              final MutableDirectBuffer val
+                  = (MutableDirectBuffer) c.reserve(rwKey, valSize, flags);
+              if (valRandom) {
+                val.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+              } else {
+                val.putInt(0, key);
+                val.setMemory(BYTES, valSize - BYTES, (byte) 0);
+              }
+            }
+          }
+          tx.commit();
+        }
+      }
+    }
   }
 
 }
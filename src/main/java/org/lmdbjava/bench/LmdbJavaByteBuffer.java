@@ -20,14 +20,18 @@
 
 package org.lmdbjava.bench;
 
+import static java.lang.Integer.BYTES;
 import static java.nio.ByteBuffer.allocateDirect;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.lmdbjava.ByteBufferProxy.PROXY_OPTIMAL;
 import static org.lmdbjava.ByteBufferProxy.PROXY_SAFE;
 import static org.lmdbjava.GetOp.MDB_SET_KEY;
+import static org.lmdbjava.GetOp.MDB_SET_RANGE;
 import static org.lmdbjava.PutFlags.MDB_APPEND;
 import static org.lmdbjava.SeekOp.MDB_FIRST;
 import static org.lmdbjava.SeekOp.MDB_LAST;
@@ -36,7 +40,10 @@ import static org.lmdbjava.SeekOp.MDB_PREV;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -47,6 +54,8 @@ import org.lmdbjava.Txn;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -65,6 +74,63 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbJavaByteBuffer {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final ReadWriter rw, final ContendedReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(rw);
+    t.rwKey.clear();
+    if (rw.intKey) {
+      t.rwKey.putInt(key).flip();
+    } else {
+      final byte[] str = rw.padKey(key).getBytes(US_ASCII);
+      t.rwKey.put(str, 0, str.length).flip();
+    }
+    t.txn.reset();
+    t.txn.renew();
+    bh.consume(rw.db.get(t.txn, t.rwKey));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final ReadWriter rw, final Contention c)
+      throws IOException {
+    rw.put(c.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final ReadWriter rw, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(rw, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final ReadWriter rw, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(rw, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -78,7 +144,7 @@ public class LmdbJavaByteBuffer {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
       r.rwKey.clear();
       if (r.intKey) {
         r.rwKey.putInt(key).flip();
@@ -91,6 +157,63 @@ public class LmdbJavaByteBuffer {
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      t.rwKey.clear();
+      if (r.intKey) {
+        t.rwKey.putInt(key).flip();
+      } else {
+        final byte[] str = r.padKey(key).getBytes(US_ASCII);
+        t.rwKey.put(str, 0, str.length).flip();
+      }
+      bh.consume(t.c.get(t.rwKey, MDB_SET_KEY));
+      bh.consume(t.txn.val());
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final ReadWriter rw, final Step s, final Blackhole bh) {
+    rw.get(s.readKey(rw), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
+      r.rwKey.clear();
+      if (r.intKey) {
+        r.rwKey.putInt(key).flip();
+      } else {
+        final byte[] str = r.padKey(key).getBytes(US_ASCII);
+        r.rwKey.put(str, 0, str.length).flip();
+      }
+      bh.consume(r.c.get(r.rwKey, MDB_SET_KEY));
+      bh.consume(r.txn.val());
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      r.rwKey.clear();
+      if (r.intKey) {
+        r.rwKey.putInt(key).flip();
+      } else {
+        final byte[] str = r.padKey(key).getBytes(US_ASCII);
+        r.rwKey.put(str, 0, str.length).flip();
+      }
+      boolean found = r.c.get(r.rwKey, MDB_SET_RANGE);
+      for (int i = 0; found && i < g.scanLength; i++) {
+        bh.consume(r.txn.val());
+        found = r.c.seek(MDB_NEXT);
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     bh.consume(r.c.seek(MDB_LAST));
@@ -107,6 +230,14 @@ public class LmdbJavaByteBuffer {
     } while (r.c.seek(MDB_NEXT));
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    bh.consume(t.c.seek(MDB_FIRST));
+    do {
+      bh.consume(t.txn.val());
+    } while (t.c.seek(MDB_NEXT));
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -118,14 +249,113 @@ public class LmdbJavaByteBuffer {
     bh.consume(result);
   }
 
+  @Benchmark
+  public void update(final ReadWriter rw) {
+    for (final int key : rw.visits) {
+      rw.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final ReadWriter rw, final Step s) {
+    rw.put(s.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte <code>MDB_INTEGERKEY</code> keys.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends LmdbJava {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      bufferProxy = PROXY_OPTIMAL;
+      longKey = true;
+      // the map is sparse, so leave room for pages copied on write
+      capacity = 2 * g.total;
+      super.setup(b, false);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    @SuppressWarnings("PMD.NullAssignment")
+    void append(final long from, final long to) {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      final PutFlags flags = sequential ? MDB_APPEND : null;
+      for (long i = from; i < to; i += perCommit) {
+        final long end = Math.min(i + perCommit, to);
+        try (Txn<ByteBuffer> tx = env.txnWrite()) {
+          try (Cursor<ByteBuffer> c = db.openCursor(tx)) {
+            for (long j = i; j < end; j++) {
+              final long key = source.key(j);
+              rwKey.clear();
+              rwVal.clear();
+              rwKey.putLong(key).flip();
+              if (valRandom) {
+                rwVal.put(RND_MB, nextRndByteOffset(), valSize).flip();
+              } else {
+                rwVal.putLong(key);
+                rwVal.position(valSize);
+                rwVal.flip();
+              }
+              c.put(rwKey, rwVal, flags);
+            }
+          }
+          tx.commit();
+        }
+      }
+    }
+  }
+
+  /**
+   * Per-thread read transaction over the shared {@link ReadWriter}
+   * environment. It is reset and renewed before every lookup, so each lookup
+   * sees the latest commit without pinning an old snapshot. It is closed by
+   * the {@link ReadWriter} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ContendedReader {
+
+    ByteBuffer rwKey;
+    Txn<ByteBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final ReadWriter rw) {
+      rwKey = allocateDirect(rw.keySize).order(LITTLE_ENDIAN);
+      txn = rw.env.txnRead();
+      rw.registerThreadResource(txn);
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class LmdbJava extends CommonLmdbJava<ByteBuffer> {
+  public static class LmdbJava extends CommonLmdbJava<ByteBuffer>
+      implements KvStore {
 
     ByteBuffer rwKey;
     ByteBuffer rwVal;
@@ -140,38 +370,150 @@ public class LmdbJavaByteBuffer {
 
     @SuppressWarnings("PMD.NullAssignment")
     void write() {
-      try (Txn<ByteBuffer> tx = env.txnWrite();) {
-        try (Cursor<ByteBuffer> c = db.openCursor(tx);) {
-          final PutFlags flags = sequential ? MDB_APPEND : null;
-          final int rndByteMax = RND_MB.length - valSize;
-          int rndByteOffset = 0;
-          for (final int key : keys) {
-            rwKey.clear();
-            rwVal.clear();
-            if (intKey) {
-              rwKey.putInt(key).flip();
-            } else {
-              final byte[] str = padKey(key).getBytes(US_ASCII);
-              rwKey.put(str, 0, str.length).flip();
-            }
-            if (valRandom) {
-              rwVal.put(RND_MB, rndByteOffset, valSize).flip();
-              rndByteOffset += valSize;
-              if (rndByteOffset >= rndByteMax) {
-                rndByteOffset = 0;
+      final PutFlags flags = sequential ? MDB_APPEND : null;
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int perCommit = putsPerCommit(keys.length);
+      for (int i = 0; i < keys.length; i += perCommit) {
+        final int end = Math.min(i + perCommit, keys.length);
+        try (Txn<ByteBuffer> tx = env.txnWrite();) {
+          try (Cursor<ByteBuffer> c = db.openCursor(tx);) {
+            for (int j = i; j < end; j++) {
+              final int key = keys[j];
+              rwKey.clear();
+              rwVal.clear();
+              if (intKey) {
+                rwKey.putInt(key).flip();
+              } else {
+                final byte[] str = padKey(key).getBytes(US_ASCII);
+                rwKey.put(str, 0, str.length).flip();
+              }
+              if (valRandom) {
+                rwVal.put(RND_MB, rndByteOffset, valSize).flip();
+                rndByteOffset += valSize;
+                if (rndByteOffset >= rndByteMax) {
+                  rndByteOffset = 0;
+                }
+              } else {
+                rwVal.putInt(key);
+                rwVal.position(valSize);
+                rwVal.flip();
               }
-            } else {
-              rwVal.putInt(key);
-              rwVal.position(valSize);
-              rwVal.flip();
+              c.put(rwKey, rwVal, flags);
             }
-            c.put(rwKey, rwVal, flags);
           }
+          tx.commit();
         }
-        tx.commit();
       }
     }
 
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      try (Txn<ByteBuffer> txn = env.txnWrite()) {
+        db.delete(txn, rwKey);
+        txn.commit();
+      }
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      try (Txn<ByteBuffer> txn = env.txnRead()) {
+        bh.consume(db.get(txn, rwKey));
+      }
+    }
+
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      putVal(key);
+      try (Txn<ByteBuffer> txn = env.txnWrite()) {
+        db.put(txn, rwKey, rwVal);
+        txn.commit();
+      }
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      putKey(key);
+      try (Txn<ByteBuffer> txn = env.txnRead();
+           Cursor<ByteBuffer> c = db.openCursor(txn)) {
+        boolean found = c.get(rwKey, MDB_SET_RANGE);
+        for (int i = 0; found && i < count; i++) {
+          bh.consume(txn.val());
+          found = c.seek(MDB_NEXT);
+        }
+      }
+    }
+
+    void putKey(final int key) {
+      rwKey.clear();
+      if (intKey) {
+        rwKey.putInt(key).flip();
+      } else {
+        final byte[] str = padKey(key).getBytes(US_ASCII);
+        rwKey.put(str, 0, str.length).flip();
+      }
+    }
+
+    private void putVal(final int key) {
+      rwVal.clear();
+      if (valRandom) {
+        rwVal.put(RND_MB, nextRndByteOffset(), valSize).flip();
+      } else {
+        rwVal.putInt(key);
+        rwVal.position(valSize);
+        rwVal.flip();
+      }
+    }
+  }
+
+  /**
+   * Populated like {@link ReadWriter} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends LmdbJava {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_OPTIMAL;
+      super.setup(b, false);
+      super.write();
+      env.setMapSize(readWriteMapSize(num, valSize));
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader}, but without a long-lived read transaction
+   * (which would stop LMDB reusing space freed by later writes).
+   */
+  @State(Benchmark)
+  public static class ReadWriter extends LmdbJava {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      bufferProxy = PROXY_OPTIMAL;
+      super.setup(b, false);
+      super.write();
+      env.setMapSize(readWriteMapSize(num, valSize));
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
@@ -192,8 +534,11 @@ public class LmdbJavaByteBuffer {
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       bufferProxy = forceSafe ? PROXY_SAFE : PROXY_OPTIMAL;
+      cacheable = true;
       super.setup(b, false);
-      super.write();
+      if (!cached) {
+        super.write();
+      }
       txn = env.txnRead();
       c = db.openCursor(txn);
     }
@@ -207,10 +552,41 @@ public class LmdbJavaByteBuffer {
     }
   }
 
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * environment, so the "Mt" benchmarks can run with any <code>-t</code>.
+   * These are closed by the {@link Reader} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Cursor<ByteBuffer> c;
+    ByteBuffer rwKey;
+    Txn<ByteBuffer> txn;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      rwKey = allocateDirect(r.keySize).order(LITTLE_ENDIAN);
+      txn = r.env.txnRead();
+      c = r.db.openCursor(txn);
+      r.registerThreadResource(txn);
+      r.registerThreadResource(c);
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends LmdbJava {
 
+    /**
+     * Whether each value is generated in place in the map, using
+     * <code>MDB_RESERVE</code> to obtain the destination, instead of being
+     * staged in a buffer that LMDB then copies.
+     */
+    @Param("false")
+    boolean reserve;
+
     /**
      * Whether <code>MDB_NOSYNC</code> is used.
      */
@@ -229,6 +605,37 @@ public class LmdbJavaByteBuffer {
     public void teardown() throws IOException {
       super.teardown();
     }
+
+    @Override
+    @SuppressWarnings("PMD.NullAssignment")
+    void write() {
+      if (!reserve) {
+        super.write();
+        return;
+      }
+      final byte[] zeros = new byte[valSize];
+      final PutFlags flags = sequential ? MDB_APPEND : null;
+      final int perCommit = putsPerCommit(keys.length);
+      for (int i = 0; i < keys.length; i += perCommit) {
+        final int end = Math.min(i + perCommit, keys.length);
+        try (Txn<ByteBuffer> tx = env.txnWrite()) {
+          try (Cursor<ByteBuffer> c = db.openCursor(tx)) {
+            for (int j = i; j < end; j++) {
+              final int key = keys[j];
+              putKey(key);
+              final ByteBuffer val = c.reserve(rwKey, valSize, flags);
+              if (valRandom) {
+                val.put(RND_MB, nextRndByteOffset(), valSize);
+              } else {
+                val.putInt(key);
+                val.put(zeros, 0, valSize - BYTES);
+              }
+            }
+          }
+          tx.commit();
+        }
+      }
+    }
   }
 
 }
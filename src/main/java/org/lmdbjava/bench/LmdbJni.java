@@ -23,7 +23,9 @@ package org.lmdbjava.bench;
 import static java.lang.Boolean.TRUE;
 import static java.lang.System.setProperty;
 import static java.nio.ByteBuffer.allocateDirect;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.fusesource.lmdbjni.DirectBuffer.DISABLE_BOUNDS_CHECKS_PROP_NAME;
 import static org.lmdbjava.MaskedFlag.mask;
@@ -31,10 +33,15 @@ import static org.lmdbjava.bench.CommonLmdbJava.POSIX_MODE;
 import static org.lmdbjava.bench.CommonLmdbJava.dbiFlags;
 import static org.lmdbjava.bench.CommonLmdbJava.envFlags;
 import static org.lmdbjava.bench.CommonLmdbJava.mapSize;
+import static org.lmdbjava.bench.CommonLmdbJava.maxReaders;
+import static org.lmdbjava.bench.CommonLmdbJava.readWriteMapSize;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.IOException;
 
@@ -48,6 +55,8 @@ import org.lmdbjava.EnvFlags;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -66,6 +75,62 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class LmdbJni {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final ReadWriter rw, final ContendedReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(rw);
+    if (rw.intKey) {
+      t.wkb.putInt(0, key);
+    } else {
+      t.wkb.putStringWithoutLengthUtf8(0, rw.padKey(key));
+    }
+    t.tx.reset();
+    t.tx.renew();
+    bh.consume(rw.db.get(t.tx, t.wkb, t.wvb));
+    bh.consume(t.wvb);
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final ReadWriter rw, final Contention c)
+      throws IOException {
+    rw.put(c.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final ReadWriter rw, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(rw, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final ReadWriter rw, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(rw, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -81,7 +146,42 @@ public class LmdbJni {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      r.c.keyWrite(r.wkb);
+      bh.consume(r.c.seekKey());
+      bh.consume(r.c.valBuffer());
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.wkb.putInt(0, key);
+      } else {
+        t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      t.c.keyWrite(t.wkb);
+      bh.consume(t.c.seekKey());
+      bh.consume(t.c.valBuffer());
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final ReadWriter rw, final Step s, final Blackhole bh) {
+    rw.get(s.readKey(rw), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
       if (r.intKey) {
         r.wkb.putInt(0, key);
       } else {
@@ -93,6 +193,25 @@ public class LmdbJni {
     }
   }
 
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      r.c.keyWrite(r.wkb);
+      boolean found = r.c.seekRange();
+      for (int i = 0; found && i < g.scanLength; i++) {
+        bh.consume(r.c.valBuffer());
+        found = r.c.next();
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     bh.consume(r.c.last());
@@ -109,6 +228,14 @@ public class LmdbJni {
     } while (r.c.next());
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    bh.consume(t.c.first());
+    do {
+      bh.consume(t.c.valBuffer());
+    } while (t.c.next());
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -120,14 +247,37 @@ public class LmdbJni {
     bh.consume(result);
   }
 
+  @Benchmark
+  public void update(final ReadWriter rw) {
+    for (final int key : rw.visits) {
+      rw.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final ReadWriter rw, final Step s) {
+    rw.put(s.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonLmdbJni extends Common {
+  public static class CommonLmdbJni extends Common implements KvStore {
 
     Database db;
     Env env;
@@ -173,13 +323,13 @@ public class LmdbJni {
       final EnvFlags[] envFlags = envFlags(writeMap, sync);
 
       env = new Env();
-      env.setMapSize(mapSize(num, valSize));
+      env.setMapSize(mapSize(capacity, valSize));
       env.setMaxDbs(1);
-      env.setMaxReaders(2);
+      env.setMaxReaders(maxReaders(b));
       env.open(tmp.getAbsolutePath(), mask(envFlags), POSIX_MODE);
 
       try (Transaction tx = env.createWriteTransaction()) {
-        final DbiFlags[] flags = dbiFlags(intKey);
+        final DbiFlags[] flags = dbiFlags(intKey || longKey);
         db = env.openDatabase(tx, "db", mask(flags));
         tx.commit();
       }
@@ -187,43 +337,226 @@ public class LmdbJni {
 
     @Override
     public void teardown() throws IOException {
+      closeThreadResources();
       reportSpaceBeforeClose();
       env.close();
       super.teardown();
     }
 
     void write() {
-      try (Transaction tx = env.createWriteTransaction()) {
-        try (BufferCursor c = db.bufferCursor(tx);) {
-          final int rndByteMax = RND_MB.length - valSize;
-          int rndByteOffset = 0;
-          for (final int key : keys) {
-            if (intKey) {
-              wkb.putInt(0, key);
-            } else {
-              wkb.putStringWithoutLengthUtf8(0, padKey(key));
-            }
-            if (valRandom) {
-              wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
-              rndByteOffset += valSize;
-              if (rndByteOffset >= rndByteMax) {
-                rndByteOffset = 0;
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int perCommit = putsPerCommit(keys.length);
+      for (int i = 0; i < keys.length; i += perCommit) {
+        final int end = Math.min(i + perCommit, keys.length);
+        try (Transaction tx = env.createWriteTransaction()) {
+          try (BufferCursor c = db.bufferCursor(tx);) {
+            for (int j = i; j < end; j++) {
+              final int key = keys[j];
+              if (intKey) {
+                wkb.putInt(0, key);
+              } else {
+                wkb.putStringWithoutLengthUtf8(0, padKey(key));
+              }
+              if (valRandom) {
+                wvb.putBytes(0, RND_MB, rndByteOffset, valSize);
+                rndByteOffset += valSize;
+                if (rndByteOffset >= rndByteMax) {
+                  rndByteOffset = 0;
+                }
+              } else {
+                wvb.putInt(0, key);
+              }
+              c.keyWrite(wkb);
+              c.valWrite(wvb);
+              if (sequential) {
+                c.append();
+              } else {
+                c.overwrite();
               }
-            } else {
-              wvb.putInt(0, key);
-            }
-            c.keyWrite(wkb);
-            c.valWrite(wvb);
-            if (sequential) {
-              c.append();
-            } else {
-              c.overwrite();
             }
           }
+          tx.commit();
         }
+      }
+    }
+
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      try (Transaction tx = env.createWriteTransaction()) {
+        db.delete(tx, wkb);
         tx.commit();
       }
     }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      try (Transaction tx = env.createReadTransaction();
+           BufferCursor c = db.bufferCursor(tx)) {
+        c.keyWrite(wkb);
+        bh.consume(c.seekKey());
+        bh.consume(c.valBuffer());
+      }
+    }
+
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        wvb.putInt(0, key);
+      }
+      try (Transaction tx = env.createWriteTransaction()) {
+        db.put(tx, wkb, wvb);
+        tx.commit();
+      }
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      putKey(key);
+      try (Transaction tx = env.createReadTransaction();
+           BufferCursor c = db.bufferCursor(tx)) {
+        c.keyWrite(wkb);
+        boolean found = c.seekRange();
+        for (int i = 0; found && i < count; i++) {
+          bh.consume(c.valBuffer());
+          found = c.next();
+        }
+      }
+    }
+
+    private void putKey(final int key) {
+      if (intKey) {
+        wkb.putInt(0, key);
+      } else {
+        wkb.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte <code>MDB_INTEGERKEY</code> keys.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonLmdbJni {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      // the map is sparse, so leave room for pages copied on write
+      capacity = 2 * g.total;
+      super.setup(b, false);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void append(final long from, final long to) {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      for (long i = from; i < to; i += perCommit) {
+        final long end = Math.min(i + perCommit, to);
+        try (Transaction tx = env.createWriteTransaction()) {
+          try (BufferCursor c = db.bufferCursor(tx)) {
+            for (long j = i; j < end; j++) {
+              final long key = source.key(j);
+              wkb.putLong(0, key);
+              if (valRandom) {
+                wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+              } else {
+                wvb.putLong(0, key);
+              }
+              c.keyWrite(wkb);
+              c.valWrite(wvb);
+              if (sequential) {
+                c.append();
+              } else {
+                c.overwrite();
+              }
+            }
+          }
+          tx.commit();
+        }
+      }
+    }
+  }
+
+  /**
+   * Per-thread read transaction over the shared {@link ReadWriter}
+   * environment. It is reset and renewed before every lookup, so each lookup
+   * sees the latest commit without pinning an old snapshot. It is closed by
+   * the {@link ReadWriter} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ContendedReader {
+
+    Transaction tx;
+    DirectBuffer wkb;
+    DirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final ReadWriter rw) {
+      wkb = new DirectBuffer(allocateDirect(rw.keySize));
+      wvb = new DirectBuffer();
+      tx = rw.env.createReadTransaction();
+      rw.registerThreadResource(tx);
+    }
+  }
+
+  /**
+   * Populated like {@link ReadWriter} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonLmdbJni {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+      env.setMapSize(readWriteMapSize(num, valSize));
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader}, but without a long-lived read transaction
+   * (which would stop LMDB reusing space freed by later writes).
+   */
+  @State(Benchmark)
+  public static class ReadWriter extends CommonLmdbJni {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+      env.setMapSize(readWriteMapSize(num, valSize));
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
@@ -236,8 +569,11 @@ public class LmdbJni {
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
       super.setup(b, false);
-      super.write();
+      if (!cached) {
+        super.write();
+      }
       tx = env.createReadTransaction();
       c = db.bufferCursor(tx);
     }
@@ -251,6 +587,29 @@ public class LmdbJni {
     }
   }
 
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * environment, so the "Mt" benchmarks can run with any <code>-t</code>.
+   * These are closed by the {@link Reader} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    BufferCursor c;
+    Transaction tx;
+    DirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      wkb = new DirectBuffer(allocateDirect(r.keySize));
+      tx = r.env.createReadTransaction();
+      c = r.db.bufferCursor(tx);
+      r.registerThreadResource(tx);
+      r.registerThreadResource(c);
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonLmdbJni {
@@ -20,8 +20,12 @@
 
 package org.lmdbjava.bench;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
+import static org.lmdbjava.bench.CommonLmdbJava.checkInPlace;
+import static org.lmdbjava.bench.CommonLmdbJava.readWriteMapSize;
 import static org.lwjgl.system.MemoryStack.stackPush;
 import static org.lwjgl.system.MemoryUtil.NULL;
 import static org.lwjgl.util.lmdb.LMDB.MDB_APPEND;
@@ -32,9 +36,12 @@ import static org.lwjgl.util.lmdb.LMDB.MDB_LAST;
 import static org.lwjgl.util.lmdb.LMDB.MDB_NEXT;
 import static org.lwjgl.util.lmdb.LMDB.MDB_NOSYNC;
 import static org.lwjgl.util.lmdb.LMDB.MDB_NOTFOUND;
+import static org.lwjgl.util.lmdb.LMDB.MDB_NOTLS;
 import static org.lwjgl.util.lmdb.LMDB.MDB_PREV;
 import static org.lwjgl.util.lmdb.LMDB.MDB_RDONLY;
+import static org.lwjgl.util.lmdb.LMDB.MDB_RESERVE;
 import static org.lwjgl.util.lmdb.LMDB.MDB_SET_KEY;
+import static org.lwjgl.util.lmdb.LMDB.MDB_SET_RANGE;
 import static org.lwjgl.util.lmdb.LMDB.MDB_SUCCESS;
 import static org.lwjgl.util.lmdb.LMDB.MDB_WRITEMAP;
 import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_close;
@@ -42,21 +49,29 @@ import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_get;
 import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_open;
 import static org.lwjgl.util.lmdb.LMDB.mdb_cursor_put;
 import static org.lwjgl.util.lmdb.LMDB.mdb_dbi_open;
+import static org.lwjgl.util.lmdb.LMDB.mdb_del;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_close;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_create;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_open;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_set_mapsize;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_set_maxdbs;
 import static org.lwjgl.util.lmdb.LMDB.mdb_env_set_maxreaders;
+import static org.lwjgl.util.lmdb.LMDB.mdb_get;
+import static org.lwjgl.util.lmdb.LMDB.mdb_put;
 import static org.lwjgl.util.lmdb.LMDB.mdb_strerror;
 import static org.lwjgl.util.lmdb.LMDB.mdb_txn_abort;
 import static org.lwjgl.util.lmdb.LMDB.mdb_txn_begin;
 import static org.lwjgl.util.lmdb.LMDB.mdb_txn_commit;
+import static org.lwjgl.util.lmdb.LMDB.mdb_txn_renew;
+import static org.lwjgl.util.lmdb.LMDB.mdb_txn_reset;
 import static org.lwjgl.util.lmdb.MDBVal.mallocStack;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
@@ -68,6 +83,8 @@ import org.lwjgl.util.lmdb.MDBVal;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -87,6 +104,66 @@ import org.openjdk.jmh.infra.Blackhole;
                    "PMD.CloseResource"})
 public class LmdbLwjgl {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final ReadWriter rw, final ContendedReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(rw);
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+      if (rw.intKey) {
+        rwKey.mv_data(stack.malloc(4).putInt(0, key));
+      } else {
+        rwKey.mv_data(stack.ASCII(rw.padKey(key), false));
+      }
+      mdb_txn_reset(t.txn);
+      CommonLmdbLwjgl.E(mdb_txn_renew(t.txn));
+      bh.consume(mdb_get(t.txn, rw.db, rwKey, rwVal));
+      bh.consume(rwVal.mv_data());
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final ReadWriter rw, final Contention c)
+      throws IOException {
+    rw.put(c.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final ReadWriter rw, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(rw, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final ReadWriter rw, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(rw, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     try (MemoryStack stack = stackPush()) {
@@ -110,7 +187,54 @@ public class LmdbLwjgl {
       final MDBVal rwKey = mallocStack(stack);
       final MDBVal rwVal = mallocStack(stack);
 
-      for (final int key : r.keys) {
+      for (final int key : r.visits) {
+        stack.push();
+        if (r.intKey) {
+          rwKey.mv_data(stack.malloc(4).putInt(0, key));
+        } else {
+          rwKey.mv_data(stack.ASCII(r.padKey(key), false));
+        }
+        bh.consume(mdb_cursor_get(r.c, rwKey, rwVal, MDB_SET_KEY));
+        bh.consume(rwVal.mv_data());
+        stack.pop();
+      }
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      for (final int key : r.visits) {
+        stack.push();
+        if (r.intKey) {
+          rwKey.mv_data(stack.malloc(4).putInt(0, key));
+        } else {
+          rwKey.mv_data(stack.ASCII(r.padKey(key), false));
+        }
+        bh.consume(mdb_cursor_get(t.c, rwKey, rwVal, MDB_SET_KEY));
+        bh.consume(rwVal.mv_data());
+        stack.pop();
+      }
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final ReadWriter rw, final Step s, final Blackhole bh) {
+    rw.get(s.readKey(rw), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      for (final int key : r.missing) {
         stack.push();
         if (r.intKey) {
           rwKey.mv_data(stack.malloc(4).putInt(0, key));
@@ -124,6 +248,31 @@ public class LmdbLwjgl {
     }
   }
 
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal rwKey = mallocStack(stack);
+      final MDBVal rwVal = mallocStack(stack);
+
+      final int seeks = g.seeks(r);
+      for (int s = 0; s < seeks; s++) {
+        final int key = r.visits[s];
+        stack.push();
+        if (r.intKey) {
+          rwKey.mv_data(stack.malloc(4).putInt(0, key));
+        } else {
+          rwKey.mv_data(stack.ASCII(r.padKey(key), false));
+        }
+        int status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_SET_RANGE);
+        for (int i = 0; status == MDB_SUCCESS && i < g.scanLength; i++) {
+          bh.consume(rwVal.mv_data());
+          status = mdb_cursor_get(r.c, rwKey, rwVal, MDB_NEXT);
+        }
+        stack.pop();
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     try (MemoryStack stack = stackPush()) {
@@ -153,6 +302,20 @@ public class LmdbLwjgl {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    try (MemoryStack stack = stackPush()) {
+      final MDBVal key = mallocStack(stack);
+      final MDBVal val = mallocStack(stack);
+
+      int status = mdb_cursor_get(t.c, key, val, MDB_FIRST);
+      while (status != MDB_NOTFOUND) {
+        bh.consume(val.mv_data());
+        status = mdb_cursor_get(t.c, key, val, MDB_NEXT);
+      }
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     try (MemoryStack stack = stackPush()) {
@@ -172,14 +335,47 @@ public class LmdbLwjgl {
     }
   }
 
+  @Benchmark
+  public void rmwGetPut(final ReadWriter rw) {
+    rw.incrementGetPut();
+  }
+
+  @Benchmark
+  public void rmwInPlace(final ReadWriter rw) {
+    rw.incrementInPlace();
+  }
+
+  @Benchmark
+  public void update(final ReadWriter rw) {
+    for (final int key : rw.visits) {
+      rw.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final ReadWriter rw, final Step s) {
+    rw.put(s.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonLmdbLwjgl extends Common {
+  public static class CommonLmdbLwjgl extends Common implements KvStore {
 
     private static final int POSIX_MODE = 664;
 
@@ -210,7 +406,8 @@ public class LmdbLwjgl {
     }
 
     private static int envFlags(final boolean writeMap, final boolean sync) {
-      int envFlags = 0;
+      // read txns belong to the state holding them, not the JMH thread
+      int envFlags = MDB_NOTLS;
       if (writeMap) {
         envFlags |= MDB_WRITEMAP;
       }
@@ -220,7 +417,7 @@ public class LmdbLwjgl {
       return envFlags;
     }
 
-    private static long mapSize(final int num, final int valSize) {
+    private static long mapSize(final long num, final int valSize) {
       return num * ((long) valSize) * 32L / 10L;
     }
 
@@ -235,8 +432,9 @@ public class LmdbLwjgl {
         env = pp.get(0);
 
         E(mdb_env_set_maxdbs(env, 1));
-        E(mdb_env_set_maxreaders(env, 2));
-        E(mdb_env_set_mapsize(env, mapSize(num, valSize)));
+        // shared Reader txn plus one txn per benchmark thread
+        E(mdb_env_set_maxreaders(env, b.getThreads() + 1));
+        E(mdb_env_set_mapsize(env, mapSize(capacity, valSize)));
 
         // Open environment
         E(mdb_env_open(env, tmp.getPath(), envFlags(writeMap, sync), POSIX_MODE));
@@ -246,7 +444,7 @@ public class LmdbLwjgl {
         final long txn = pp.get(0);
 
         final IntBuffer ip = stack.mallocInt(1);
-        E(mdb_dbi_open(txn, "db", dbiFlags(intKey), ip));
+        E(mdb_dbi_open(txn, "db", dbiFlags(intKey || longKey), ip));
         db = ip.get(0);
 
         mdb_txn_commit(txn);
@@ -255,6 +453,7 @@ public class LmdbLwjgl {
 
     @Override
     public void teardown() throws IOException {
+      closeThreadResources();
       reportSpaceBeforeClose();
       mdb_env_close(env);
       super.teardown();
@@ -267,45 +466,325 @@ public class LmdbLwjgl {
         final MDBVal rwKey = mallocStack(stack);
         final MDBVal rwVal = mallocStack(stack);
 
-        E(mdb_txn_begin(env, NULL, 0, pp));
-        final long tx = pp.get(0);
-
-        E(mdb_cursor_open(tx, db, pp));
-        final long c = pp.get(0);
-
         final int flags = sequential ? MDB_APPEND : 0;
         final int rndByteMax = RND_MB.length - valSize;
         int rndByteOffset = 0;
-        for (final int key : keys) {
-          stack.push();
-          if (intKey) {
-            rwKey.mv_data(stack.malloc(4).putInt(0, key));
-          } else {
-            rwKey.mv_data(stack.ASCII(padKey(key), false));
-          }
-          if (valRandom) {
-            final ByteBuffer rnd = stack.malloc(valSize).put(RND_MB,
-                                                             rndByteOffset,
-                                                             valSize);
-            rnd.flip();
-            rwVal.mv_data(rnd);
-            rndByteOffset += valSize;
-            if (rndByteOffset >= rndByteMax) {
-              rndByteOffset = 0;
+        final int perCommit = putsPerCommit(keys.length);
+        for (int i = 0; i < keys.length; i += perCommit) {
+          final int end = Math.min(i + perCommit, keys.length);
+          E(mdb_txn_begin(env, NULL, 0, pp));
+          final long tx = pp.get(0);
+
+          E(mdb_cursor_open(tx, db, pp));
+          final long c = pp.get(0);
+
+          for (int j = i; j < end; j++) {
+            final int key = keys[j];
+            stack.push();
+            if (intKey) {
+              rwKey.mv_data(stack.malloc(4).putInt(0, key));
+            } else {
+              rwKey.mv_data(stack.ASCII(padKey(key), false));
             }
-          } else {
-            rwVal.mv_data(stack.malloc(valSize).putInt(0, key));
+            if (valRandom) {
+              final ByteBuffer rnd = stack.malloc(valSize).put(RND_MB,
+                                                               rndByteOffset,
+                                                               valSize);
+              rnd.flip();
+              rwVal.mv_data(rnd);
+              rndByteOffset += valSize;
+              if (rndByteOffset >= rndByteMax) {
+                rndByteOffset = 0;
+              }
+            } else {
+              rwVal.mv_data(stack.malloc(valSize).putInt(0, key));
+            }
+
+            E(mdb_cursor_put(c, rwKey, rwVal, flags));
+            stack.pop();
           }
 
-          E(mdb_cursor_put(c, rwKey, rwVal, flags));
-          stack.pop();
+          mdb_cursor_close(c);
+          mdb_txn_commit(tx);
+        }
+      }
+    }
+
+    @Override
+    public void delete(final int key) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = putKey(stack, key);
+
+        E(mdb_txn_begin(env, NULL, 0, pp));
+        final long txn = pp.get(0);
+        final int rc = mdb_del(txn, db, rwKey, null);
+        if (rc != MDB_NOTFOUND) {
+          E(rc);
         }
+        E(mdb_txn_commit(txn));
+      }
+    }
 
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = putKey(stack, key);
+        final MDBVal rwVal = mallocStack(stack);
+
+        E(mdb_txn_begin(env, NULL, MDB_RDONLY, pp));
+        final long txn = pp.get(0);
+        if (mdb_get(txn, db, rwKey, rwVal) == MDB_SUCCESS) {
+          bh.consume(rwVal.mv_data());
+        }
+        mdb_txn_abort(txn);
+      }
+    }
+
+    @Override
+    public void put(final int key) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = putKey(stack, key);
+        final MDBVal rwVal = mallocStack(stack);
+        if (valRandom) {
+          final ByteBuffer rnd = stack.malloc(valSize)
+              .put(RND_MB, nextRndByteOffset(), valSize);
+          rnd.flip();
+          rwVal.mv_data(rnd);
+        } else {
+          rwVal.mv_data(stack.malloc(valSize).putInt(0, key));
+        }
+
+        E(mdb_txn_begin(env, NULL, 0, pp));
+        final long txn = pp.get(0);
+        E(mdb_put(txn, db, rwKey, rwVal, 0));
+        E(mdb_txn_commit(txn));
+      }
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwKey = putKey(stack, key);
+        final MDBVal rwVal = mallocStack(stack);
+
+        E(mdb_txn_begin(env, NULL, MDB_RDONLY, pp));
+        final long txn = pp.get(0);
+        E(mdb_cursor_open(txn, db, pp));
+        final long c = pp.get(0);
+
+        int status = mdb_cursor_get(c, rwKey, rwVal, MDB_SET_RANGE);
+        for (int i = 0; status == MDB_SUCCESS && i < count; i++) {
+          bh.consume(rwVal.mv_data());
+          status = mdb_cursor_get(c, rwKey, rwVal, MDB_NEXT);
+        }
         mdb_cursor_close(c);
-        mdb_txn_commit(tx);
+        mdb_txn_abort(txn);
+      }
+    }
+
+    MDBVal putKey(final MemoryStack stack, final int key) {
+      final MDBVal rwKey = mallocStack(stack);
+      if (intKey) {
+        rwKey.mv_data(stack.malloc(4).putInt(0, key));
+      } else {
+        rwKey.mv_data(stack.ASCII(padKey(key), false));
+      }
+      return rwKey;
+    }
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte <code>MDB_INTEGERKEY</code> keys.
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonLmdbLwjgl {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      // the map is sparse, so leave room for pages copied on write
+      capacity = 2 * g.total;
+      super.setup(b, false);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void append(final long from, final long to) {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      final int flags = sequential ? MDB_APPEND : 0;
+      for (long i = from; i < to; i += perCommit) {
+        final long end = Math.min(i + perCommit, to);
+        try (MemoryStack stack = stackPush()) {
+          final PointerBuffer pp = stack.mallocPointer(1);
+          final MDBVal rwKey = mallocStack(stack);
+          final MDBVal rwVal = mallocStack(stack);
+
+          E(mdb_txn_begin(env, NULL, 0, pp));
+          final long tx = pp.get(0);
+          E(mdb_cursor_open(tx, db, pp));
+          final long c = pp.get(0);
+
+          for (long j = i; j < end; j++) {
+            stack.push();
+            final long key = source.key(j);
+            rwKey.mv_data(stack.malloc(Long.BYTES).putLong(0, key));
+            if (valRandom) {
+              final ByteBuffer rnd = stack.malloc(valSize)
+                  .put(RND_MB, nextRndByteOffset(), valSize);
+              rnd.flip();
+              rwVal.mv_data(rnd);
+            } else {
+              rwVal.mv_data(stack.malloc(valSize).putLong(0, key));
+            }
+            E(mdb_cursor_put(c, rwKey, rwVal, flags));
+            stack.pop();
+          }
+
+          mdb_cursor_close(c);
+          E(mdb_txn_commit(tx));
+        }
+      }
+    }
+  }
+
+  /**
+   * Per-thread read transaction over the shared {@link ReadWriter}
+   * environment. It is reset and renewed before every lookup, so each lookup
+   * sees the latest commit without pinning an old snapshot. It is aborted by
+   * the {@link ReadWriter} before its environment is closed.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ContendedReader {
+
+    long txn;
+
+    @Setup(Trial)
+    public void setup(final ReadWriter rw) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        CommonLmdbLwjgl.E(mdb_txn_begin(rw.env, NULL, MDB_RDONLY, pp));
+        txn = pp.get(0);
+      }
+      rw.registerThreadResource(() -> mdb_txn_abort(txn));
+    }
+  }
+
+  /**
+   * Populated like {@link ReadWriter} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonLmdbLwjgl {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      super.write();
+      E(mdb_env_set_mapsize(env, readWriteMapSize(num, valSize)));
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader}, but without a long-lived read transaction
+   * (which would stop LMDB reusing space freed by later writes).
+   */
+  @State(Benchmark)
+  public static class ReadWriter extends CommonLmdbLwjgl {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, false);
+      checkInPlace(b, keySize, valSize);
+      super.write();
+      E(mdb_env_set_mapsize(env, readWriteMapSize(num, valSize)));
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    /**
+     * Increments a counter held in the first 8 bytes of every visited value,
+     * copying each value out with a get and back in with a put.
+     */
+    void incrementGetPut() {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwVal = mallocStack(stack);
+        final ByteBuffer copy = stack.malloc(valSize);
+
+        E(mdb_txn_begin(env, NULL, 0, pp));
+        final long txn = pp.get(0);
+        for (final int key : visits) {
+          stack.push();
+          final MDBVal rwKey = putKey(stack, key);
+          E(mdb_get(txn, db, rwKey, rwVal));
+          copy.clear();
+          copy.put(rwVal.mv_data()).flip();
+          copy.putLong(0, copy.getLong(0) + 1);
+          rwVal.mv_data(copy);
+          E(mdb_put(txn, db, rwKey, rwVal, 0));
+          stack.pop();
+        }
+        E(mdb_txn_commit(txn));
       }
     }
 
+    /**
+     * Increments a counter held in the first 8 bytes of every visited value
+     * where the value lies in the map. An <code>MDB_RESERVE</code> put of the
+     * same size on an existing key whose value sits in a leaf page returns the
+     * value's location in a page this transaction has already copied on write,
+     * with the old value intact. A value on overflow pages (see
+     * {@link CommonLmdbJava#maxInlineValSize(int)}) is instead replaced by
+     * uninitialised space, so setup rejects such value sizes for
+     * "rmwInPlace". (Writing through a value returned by a get would instead
+     * modify the committed page under <code>MDB_WRITEMAP</code>, and is
+     * unsafe.)
+     */
+    void incrementInPlace() {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+        final MDBVal rwVal = mallocStack(stack);
+
+        E(mdb_txn_begin(env, NULL, 0, pp));
+        final long txn = pp.get(0);
+        for (final int key : visits) {
+          stack.push();
+          final MDBVal rwKey = putKey(stack, key);
+          rwVal.mv_size(valSize);
+          E(mdb_put(txn, db, rwKey, rwVal, MDB_RESERVE));
+          final ByteBuffer val = rwVal.mv_data();
+          val.putLong(0, val.getLong(0) + 1);
+          stack.pop();
+        }
+        E(mdb_txn_commit(txn));
+      }
+    }
   }
 
   @State(Benchmark)
@@ -318,8 +797,11 @@ public class LmdbLwjgl {
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
       super.setup(b, false);
-      super.write();
+      if (!cached) {
+        super.write();
+      }
 
       try (MemoryStack stack = stackPush()) {
         final PointerBuffer pp = stack.mallocPointer(1);
@@ -341,6 +823,34 @@ public class LmdbLwjgl {
     }
   }
 
+  /**
+   * Per-thread read transaction and cursor over the shared {@link Reader}
+   * environment, so the "Mt" benchmarks can run with any <code>-t</code>.
+   * These are closed by the {@link Reader} before its environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    long c;
+    long txn;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      try (MemoryStack stack = stackPush()) {
+        final PointerBuffer pp = stack.mallocPointer(1);
+
+        CommonLmdbLwjgl.E(mdb_txn_begin(r.env, NULL, MDB_RDONLY, pp));
+        txn = pp.get(0);
+
+        CommonLmdbLwjgl.E(mdb_cursor_open(txn, r.db, pp));
+        c = pp.get(0);
+      }
+      r.registerThreadResource(() -> mdb_txn_abort(txn));
+      r.registerThreadResource(() -> mdb_cursor_close(c));
+    }
+  }
+
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonLmdbLwjgl {
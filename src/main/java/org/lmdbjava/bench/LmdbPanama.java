@@ -0,0 +1,604 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.foreign.ValueLayout.ADDRESS;
+import static java.lang.foreign.ValueLayout.JAVA_BYTE;
+import static java.lang.foreign.ValueLayout.JAVA_INT;
+import static java.lang.foreign.ValueLayout.JAVA_LONG;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static net.openhft.hashing.LongHashFunction.xx_r39;
+import static org.lmdbjava.bench.CommonLmdbJava.mapSize;
+import static org.openjdk.jmh.annotations.Level.Invocation;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SymbolLookup;
+import java.lang.invoke.MethodHandle;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * LMDB called directly through the Foreign Function and Memory API, with keys
+ * and values as {@link MemorySegment}s. The library is the one bundled with
+ * LmdbJava, unless <code>-Dlmdbjava.native.lib</code> names another.
+ *
+ * <p>
+ * Only compiled by the "panama" profile, which is active on Java 22 and above.
+ */
+@OutputTimeUnit(MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+@Warmup(iterations = 3)
+@Measurement(iterations = 3)
+@BenchmarkMode(SampleTime)
+@SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension",
+                   "PMD.CloseResource"})
+public class LmdbPanama {
+
+  // constants from lmdb.h
+  static final int MDB_APPEND = 0x20000;
+  static final int MDB_CREATE = 0x40000;
+  static final int MDB_FIRST = 0;
+  static final int MDB_INTEGERKEY = 0x08;
+  static final int MDB_LAST = 6;
+  static final int MDB_NEXT = 8;
+  static final int MDB_NOSYNC = 0x10000;
+  static final int MDB_NOTFOUND = -30_798;
+  static final int MDB_NOTLS = 0x200000;
+  static final int MDB_PREV = 12;
+  static final int MDB_RDONLY = 0x20000;
+  static final int MDB_SET_KEY = 16;
+  static final int MDB_SET_RANGE = 17;
+  static final int MDB_SUCCESS = 0;
+  static final int MDB_WRITEMAP = 0x80000;
+
+  @Benchmark
+  public void readCrc(final Reader r, final Blackhole bh) {
+    r.crc.reset();
+    int status = r.cursorGet(MDB_FIRST);
+    while (status != MDB_NOTFOUND) {
+      r.crc.update(r.key().asByteBuffer());
+      r.crc.update(r.val().asByteBuffer());
+      status = r.cursorGet(MDB_NEXT);
+    }
+    bh.consume(r.crc.getValue());
+  }
+
+  @Benchmark
+  public void readKey(final Reader r, final Blackhole bh) {
+    for (final int key : r.visits) {
+      r.putKey(key);
+      bh.consume(r.cursorGet(MDB_SET_KEY));
+      bh.consume(r.val());
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      r.putKey(key, t.rwKey, t.rwKeyData);
+      bh.consume(t.cursorGet(MDB_SET_KEY));
+      bh.consume(t.val());
+    }
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
+      r.putKey(key);
+      bh.consume(r.cursorGet(MDB_SET_KEY));
+      bh.consume(r.val());
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      r.putKey(r.visits[s]);
+      int status = r.cursorGet(MDB_SET_RANGE);
+      for (int i = 0; status == MDB_SUCCESS && i < g.scanLength; i++) {
+        bh.consume(r.val());
+        status = r.cursorGet(MDB_NEXT);
+      }
+    }
+  }
+
+  @Benchmark
+  public void readRev(final Reader r, final Blackhole bh) {
+    int status = r.cursorGet(MDB_LAST);
+    while (status != MDB_NOTFOUND) {
+      bh.consume(r.val());
+      status = r.cursorGet(MDB_PREV);
+    }
+  }
+
+  @Benchmark
+  public void readSeq(final Reader r, final Blackhole bh) {
+    int status = r.cursorGet(MDB_FIRST);
+    while (status != MDB_NOTFOUND) {
+      bh.consume(r.val());
+      status = r.cursorGet(MDB_NEXT);
+    }
+  }
+
+  @Benchmark
+  public void readSeqMt(final ThreadReader t, final Blackhole bh) {
+    int status = t.cursorGet(MDB_FIRST);
+    while (status != MDB_NOTFOUND) {
+      bh.consume(t.val());
+      status = t.cursorGet(MDB_NEXT);
+    }
+  }
+
+  @Benchmark
+  public void readXxh64(final Reader r, final Blackhole bh) {
+    long result = 0;
+    int status = r.cursorGet(MDB_FIRST);
+    while (status != MDB_NOTFOUND) {
+      result += xx_r39().hashBytes(r.key().asByteBuffer());
+      result += xx_r39().hashBytes(r.val().asByteBuffer());
+      status = r.cursorGet(MDB_NEXT);
+    }
+    bh.consume(result);
+  }
+
+  @Benchmark
+  public void write(final Writer w, final Blackhole bh) {
+    w.write();
+  }
+
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class CommonLmdbPanama extends Common {
+
+    private static final MethodHandle CURSOR_CLOSE;
+    private static final MethodHandle CURSOR_GET;
+    private static final MethodHandle CURSOR_OPEN;
+    private static final MethodHandle CURSOR_PUT;
+    private static final MethodHandle DBI_OPEN;
+    private static final MethodHandle ENV_CLOSE;
+    private static final MethodHandle ENV_CREATE;
+    private static final MethodHandle ENV_OPEN;
+    private static final MethodHandle ENV_SET_MAPSIZE;
+    private static final MethodHandle ENV_SET_MAXDBS;
+    private static final MethodHandle ENV_SET_MAXREADERS;
+    private static final String LIB_RESOURCE
+        = "/org/lmdbjava/lmdbjava-native-linux-x86_64.so";
+    private static final int MDB_VAL_SIZE = 16; // size_t mv_size, void *mv_data
+    private static final int POSIX_MODE = 0x1B4; // rw-rw-r--
+    private static final MethodHandle TXN_ABORT;
+    private static final MethodHandle TXN_BEGIN;
+    private static final MethodHandle TXN_COMMIT;
+
+    /**
+     * Memory for the fields below. Shared, as JMH may set up and use a state
+     * on different threads.
+     */
+    Arena arena;
+    int db;
+    MemorySegment env;
+    /**
+     * <code>MDB_val</code> of the key.
+     */
+    MemorySegment rwKey;
+    MemorySegment rwKeyData;
+    /**
+     * <code>MDB_val</code> of the value.
+     */
+    MemorySegment rwVal;
+    MemorySegment rwValData;
+
+    /**
+     * Whether <code>MDB_WRITEMAP</code> is used.
+     */
+    @Param("true")
+    boolean writeMap;
+
+    /**
+     * Pointer-sized out parameter.
+     */
+    private MemorySegment pp;
+
+    static {
+      final SymbolLookup lmdb = SymbolLookup.libraryLookup(library(),
+                                                           Arena.global());
+      CURSOR_CLOSE = downcall(lmdb, "mdb_cursor_close",
+                              FunctionDescriptor.ofVoid(ADDRESS));
+      CURSOR_GET = downcall(lmdb, "mdb_cursor_get",
+                            FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS,
+                                                  ADDRESS, JAVA_INT));
+      CURSOR_OPEN = downcall(lmdb, "mdb_cursor_open",
+                             FunctionDescriptor.of(JAVA_INT, ADDRESS, JAVA_INT,
+                                                   ADDRESS));
+      CURSOR_PUT = downcall(lmdb, "mdb_cursor_put",
+                            FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS,
+                                                  ADDRESS, JAVA_INT));
+      DBI_OPEN = downcall(lmdb, "mdb_dbi_open",
+                          FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS,
+                                                JAVA_INT, ADDRESS));
+      ENV_CLOSE = downcall(lmdb, "mdb_env_close",
+                           FunctionDescriptor.ofVoid(ADDRESS));
+      ENV_CREATE = downcall(lmdb, "mdb_env_create",
+                            FunctionDescriptor.of(JAVA_INT, ADDRESS));
+      ENV_OPEN = downcall(lmdb, "mdb_env_open",
+                          FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS,
+                                                JAVA_INT, JAVA_INT));
+      ENV_SET_MAPSIZE = downcall(lmdb, "mdb_env_set_mapsize",
+                                 FunctionDescriptor.of(JAVA_INT, ADDRESS,
+                                                       JAVA_LONG));
+      ENV_SET_MAXDBS = downcall(lmdb, "mdb_env_set_maxdbs",
+                                FunctionDescriptor.of(JAVA_INT, ADDRESS,
+                                                      JAVA_INT));
+      ENV_SET_MAXREADERS = downcall(lmdb, "mdb_env_set_maxreaders",
+                                    FunctionDescriptor.of(JAVA_INT, ADDRESS,
+                                                          JAVA_INT));
+      TXN_ABORT = downcall(lmdb, "mdb_txn_abort",
+                           FunctionDescriptor.ofVoid(ADDRESS));
+      TXN_BEGIN = downcall(lmdb, "mdb_txn_begin",
+                           FunctionDescriptor.of(JAVA_INT, ADDRESS, ADDRESS,
+                                                 JAVA_INT, ADDRESS));
+      TXN_COMMIT = downcall(lmdb, "mdb_txn_commit",
+                            FunctionDescriptor.of(JAVA_INT, ADDRESS));
+    }
+
+    @SuppressWarnings("checkstyle:methodname")
+    static void E(final int rc) {
+      if (rc != MDB_SUCCESS) {
+        throw new IllegalStateException("LMDB error " + rc);
+      }
+    }
+
+    @SuppressWarnings({"PMD.AvoidCatchingThrowable",
+                       "PMD.AvoidThrowingRawExceptionTypes"})
+    static Object call(final MethodHandle h, final Object... args) {
+      try {
+        return h.invokeWithArguments(args);
+      } catch (final Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    @SuppressWarnings({"PMD.AvoidCatchingThrowable",
+                       "PMD.AvoidThrowingRawExceptionTypes"})
+    static int cursorGet(final MemorySegment c, final MemorySegment key,
+                         final MemorySegment val, final int op) {
+      try {
+        return (int) CURSOR_GET.invokeExact(c, key, val, op);
+      } catch (final Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    @SuppressWarnings({"PMD.AvoidCatchingThrowable",
+                       "PMD.AvoidThrowingRawExceptionTypes"})
+    static int cursorPut(final MemorySegment c, final MemorySegment key,
+                         final MemorySegment val, final int flags) {
+      try {
+        return (int) CURSOR_PUT.invokeExact(c, key, val, flags);
+      } catch (final Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    }
+
+    private static MemorySegment cString(final Arena arena, final String s) {
+      final byte[] bytes = s.getBytes(UTF_8);
+      final MemorySegment str = arena.allocate(bytes.length + 1L);
+      MemorySegment.copy(bytes, 0, str, JAVA_BYTE, 0, bytes.length);
+      str.set(JAVA_BYTE, bytes.length, (byte) 0);
+      return str;
+    }
+
+    private static MethodHandle downcall(final SymbolLookup lmdb,
+                                         final String name,
+                                         final FunctionDescriptor fd) {
+      return Linker.nativeLinker().downcallHandle(lmdb.find(name).orElseThrow(),
+                                                  fd);
+    }
+
+    private static int envFlags(final boolean writeMap, final boolean sync) {
+      // read txns belong to the state holding them, not the JMH thread
+      int envFlags = MDB_NOTLS;
+      if (writeMap) {
+        envFlags |= MDB_WRITEMAP;
+      }
+      if (!sync) {
+        envFlags |= MDB_NOSYNC;
+      }
+      return envFlags;
+    }
+
+    private static Path library() {
+      final String lib = System.getProperty("lmdbjava.native.lib");
+      if (lib != null) {
+        return Paths.get(lib);
+      }
+      try (InputStream in = LmdbPanama.class.getResourceAsStream(LIB_RESOURCE)) {
+        if (in == null) {
+          throw new IllegalStateException("No " + LIB_RESOURCE);
+        }
+        final Path extracted = Files.createTempFile("lmdbpanama-", ".so");
+        extracted.toFile().deleteOnExit();
+        Files.copy(in, extracted, REPLACE_EXISTING);
+        return extracted;
+      } catch (final IOException ex) {
+        throw new IllegalStateException(ex);
+      }
+    }
+
+    public void setup(final BenchmarkParams b, final boolean sync) throws
+        IOException {
+      super.setup(b);
+      arena = Arena.ofShared();
+      pp = arena.allocate(ADDRESS);
+      rwKey = arena.allocate(MDB_VAL_SIZE);
+      rwKeyData = arena.allocate(keySize);
+      rwVal = arena.allocate(MDB_VAL_SIZE);
+      rwValData = arena.allocate(valSize);
+
+      E((int) call(ENV_CREATE, pp));
+      env = pp.get(ADDRESS, 0);
+      E((int) call(ENV_SET_MAXDBS, env, 1));
+      // shared Reader txn plus one txn per benchmark thread
+      E((int) call(ENV_SET_MAXREADERS, env, b.getThreads() + 1));
+      E((int) call(ENV_SET_MAPSIZE, env, mapSize(capacity, valSize)));
+      E((int) call(ENV_OPEN, env, cString(arena, tmp.getPath()),
+                   envFlags(writeMap, sync), POSIX_MODE));
+
+      final MemorySegment txn = txnBegin(0);
+      final MemorySegment dbi = arena.allocate(JAVA_INT);
+      final int flags = intKey ? MDB_CREATE | MDB_INTEGERKEY : MDB_CREATE;
+      E((int) call(DBI_OPEN, txn, cString(arena, "db"), flags, dbi));
+      db = dbi.get(JAVA_INT, 0);
+      E((int) call(TXN_COMMIT, txn));
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      closeThreadResources();
+      reportSpaceBeforeClose();
+      call(ENV_CLOSE, env);
+      arena.close();
+      super.teardown();
+    }
+
+    final void cursorClose(final MemorySegment c) {
+      call(CURSOR_CLOSE, c);
+    }
+
+    final MemorySegment cursorOpen(final MemorySegment txn) {
+      E((int) call(CURSOR_OPEN, txn, db, pp));
+      return pp.get(ADDRESS, 0);
+    }
+
+    /**
+     * The key of {@link #rwKey}, such as where a cursor operation left it.
+     *
+     * @return segment over the key
+     */
+    final MemorySegment key() {
+      return data(rwKey);
+    }
+
+    final void putKey(final int key) {
+      putKey(key, rwKey, rwKeyData);
+    }
+
+    /**
+     * Points a key <code>MDB_val</code> at the given key.
+     *
+     * @param key  to write
+     * @param val  <code>MDB_val</code> to point at the key
+     * @param data memory of at least {@link #keySize} bytes for the key
+     */
+    final void putKey(final int key, final MemorySegment val,
+                      final MemorySegment data) {
+      if (intKey) {
+        data.set(JAVA_INT, 0, key);
+      } else {
+        final byte[] str = padKey(key).getBytes(US_ASCII);
+        MemorySegment.copy(str, 0, data, JAVA_BYTE, 0, str.length);
+      }
+      val.set(JAVA_LONG, 0, keySize);
+      val.set(ADDRESS, Long.BYTES, data);
+    }
+
+    final void txnAbort(final MemorySegment txn) {
+      call(TXN_ABORT, txn);
+    }
+
+    final MemorySegment txnBegin(final int flags) {
+      E((int) call(TXN_BEGIN, env, MemorySegment.NULL, flags, pp));
+      return pp.get(ADDRESS, 0);
+    }
+
+    final void txnCommit(final MemorySegment txn) {
+      E((int) call(TXN_COMMIT, txn));
+    }
+
+    /**
+     * The value of {@link #rwVal}, such as where a cursor operation left it.
+     *
+     * @return segment over the value (in the map, unless written by us)
+     */
+    final MemorySegment val() {
+      return data(rwVal);
+    }
+
+    void write() {
+      final int flags = sequential ? MDB_APPEND : 0;
+      final int rndByteMax = RND_MB.length - valSize;
+      int rndByteOffset = 0;
+      final int perCommit = putsPerCommit(keys.length);
+      for (int i = 0; i < keys.length; i += perCommit) {
+        final int end = Math.min(i + perCommit, keys.length);
+        final MemorySegment txn = txnBegin(0);
+        final MemorySegment c = cursorOpen(txn);
+        for (int j = i; j < end; j++) {
+          final int key = keys[j];
+          putKey(key);
+          if (valRandom) {
+            MemorySegment.copy(RND_MB, rndByteOffset, rwValData, JAVA_BYTE, 0,
+                               valSize);
+            rndByteOffset += valSize;
+            if (rndByteOffset >= rndByteMax) {
+              rndByteOffset = 0;
+            }
+          } else {
+            rwValData.set(JAVA_INT, 0, key);
+          }
+          rwVal.set(JAVA_LONG, 0, valSize);
+          rwVal.set(ADDRESS, Long.BYTES, rwValData);
+          E(cursorPut(c, rwKey, rwVal, flags));
+        }
+        cursorClose(c);
+        txnCommit(txn);
+      }
+    }
+
+    private static MemorySegment data(final MemorySegment val) {
+      return val.get(ADDRESS, Long.BYTES).reinterpret(val.get(JAVA_LONG, 0));
+    }
+  }
+
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Reader extends CommonLmdbPanama {
+
+    MemorySegment c;
+    MemorySegment txn;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
+      super.setup(b, false);
+      if (!cached) {
+        super.write();
+      }
+      txn = txnBegin(MDB_RDONLY);
+      c = cursorOpen(txn);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      cursorClose(c);
+      txnAbort(txn);
+      super.teardown();
+    }
+
+    int cursorGet(final int op) {
+      return cursorGet(c, rwKey, rwVal, op);
+    }
+  }
+
+  /**
+   * Per-thread read transaction, cursor and key/value buffers over the shared
+   * {@link Reader} environment, so the "Mt" benchmarks can run with any
+   * <code>-t</code>. These are closed by the {@link Reader} before its
+   * environment.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    MemorySegment c;
+    MemorySegment rwKey;
+    MemorySegment rwKeyData;
+    MemorySegment rwVal;
+    MemorySegment txn;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      // shared, as the Reader closes it from its own thread
+      final Arena arena = Arena.ofShared();
+      rwKey = arena.allocate(CommonLmdbPanama.MDB_VAL_SIZE);
+      rwKeyData = arena.allocate(r.keySize);
+      rwVal = arena.allocate(CommonLmdbPanama.MDB_VAL_SIZE);
+      // the Reader's out parameter is shared by every thread's setup
+      synchronized (r) {
+        txn = r.txnBegin(MDB_RDONLY);
+        c = r.cursorOpen(txn);
+      }
+      r.registerThreadResource(arena);
+      r.registerThreadResource(() -> r.txnAbort(txn));
+      r.registerThreadResource(() -> r.cursorClose(c));
+    }
+
+    int cursorGet(final int op) {
+      return CommonLmdbPanama.cursorGet(c, rwKey, rwVal, op);
+    }
+
+    MemorySegment val() {
+      return CommonLmdbPanama.data(rwVal);
+    }
+  }
+
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Writer extends CommonLmdbPanama {
+
+    /**
+     * Whether <code>MDB_NOSYNC</code> is used.
+     */
+    @Param("false")
+    boolean sync;
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b, sync);
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+}
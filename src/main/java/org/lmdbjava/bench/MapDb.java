@@ -20,15 +20,21 @@
 
 package org.lmdbjava.bench;
 
+import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.mapdb.DBMaker.fileDB;
 import static org.mapdb.Serializer.BYTE_ARRAY;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,11 +45,15 @@ import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.mapdb.BTreeMap;
 import org.mapdb.DB;
+import org.mapdb.DBMaker.Maker;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
@@ -59,6 +69,59 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class MapDb {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final Reader r, final ThreadReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(r);
+    if (r.intKey) {
+      t.wkb.putInt(0, key);
+    } else {
+      t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+    }
+    bh.consume(r.map.get(t.wkb.byteArray()));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final Reader r, final Contention c)
+      throws IOException {
+    r.put(c.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final Reader r, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(r, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final Reader r, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(r, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -73,7 +136,38 @@ public class MapDb {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.map.get(r.wkb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.wkb.putInt(0, key);
+      } else {
+        t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.map.get(t.wkb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final Reader r, final Step s, final Blackhole bh) {
+    r.get(s.readKey(r), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
       if (r.intKey) {
         r.wkb.putInt(0, key);
       } else {
@@ -83,6 +177,25 @@ public class MapDb {
     }
   }
 
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      // the iterator behind tailMap(key, true).values(), without the view
+      final Iterator<byte[]> iterator = r.map.valueIterator(r.wkb.byteArray(),
+                                                            true, null, false);
+      for (int i = 0; i < g.scanLength && iterator.hasNext(); i++) {
+        bh.consume(iterator.next());
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     final Iterator<Entry<byte[], byte[]>> iterator = r.map
@@ -102,6 +215,12 @@ public class MapDb {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final Reader r, final Blackhole bh) {
+    // iterators are created per call, so the shared Reader is thread-safe
+    readSeq(r, bh);
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -114,14 +233,51 @@ public class MapDb {
     bh.consume(result);
   }
 
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final Reader r) {
+    for (final int key : r.visits) {
+      r.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final Reader r, final Step s) {
+    r.put(s.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonMapDb extends Common {
+  public static class CommonMapDb extends Common implements KvStore {
+
+    /**
+     * Whether MapDB's locking is disabled, as only the "Mt" benchmarks (run
+     * with -t > 1) need it.
+     */
+    boolean concurrencyDisabled;
 
     DB db;
     BTreeMap<byte[], byte[]> map;
@@ -141,24 +297,37 @@ public class MapDb {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
-      db = fileDB(new File(tmp, "map.db"))
-          .fileMmapEnable()
-          .concurrencyDisable()
-          .allocateStartSize(num * valSize)
-          .make();
-      map = db.treeMap("ba2ba")
-          .keySerializer(BYTE_ARRAY)
-          .valueSerializer(BYTE_ARRAY)
-          .createOrOpen();
+      concurrencyDisabled = b.getThreads() == 1;
+      openStore();
     }
 
     @Override
     public void teardown() throws IOException {
       reportSpaceBeforeClose();
-      db.close();
+      closeStore();
       super.teardown();
     }
 
+    @Override
+    void closeStore() {
+      db.close();
+    }
+
+    @Override
+    void openStore() {
+      final Maker maker = fileDB(new File(tmp, "map.db"))
+          .fileMmapEnable()
+          .allocateStartSize(capacity * valSize);
+      if (concurrencyDisabled) {
+        maker.concurrencyDisable();
+      }
+      db = maker.make();
+      map = db.treeMap("ba2ba")
+          .keySerializer(BYTE_ARRAY)
+          .valueSerializer(BYTE_ARRAY)
+          .createOrOpen();
+    }
+
     void write() {
       final int rndByteMax = RND_MB.length - valSize;
       int rndByteOffset = 0;
@@ -180,16 +349,116 @@ public class MapDb {
         map.put(wkb.byteArray(), wvb.byteArray());
       }
     }
+
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      map.remove(wkb.byteArray());
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      bh.consume(map.get(wkb.byteArray()));
+    }
+
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      putVal(key);
+      map.put(wkb.byteArray(), wvb.byteArray());
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      putKey(key);
+      final Iterator<byte[]> iterator = map.valueIterator(wkb.byteArray(), true,
+                                                          null, false);
+      for (int i = 0; i < count && iterator.hasNext(); i++) {
+        bh.consume(iterator.next());
+      }
+    }
+
+    private void putKey(final int key) {
+      if (intKey) {
+        wkb.putInt(0, key, LITTLE_ENDIAN);
+      } else {
+        wkb.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+
+    private void putVal(final int key) {
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        wvb.putInt(0, key);
+      }
+    }
+  }
+
+  /**
+   * Populated like {@link Reader} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonMapDb {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
   public static class Reader extends CommonMapDb {
 
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
+      super.setup(b);
+      if (!cached) {
+        super.write();
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  @State(Benchmark)
+  public static class Reopener extends CommonMapDb {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
       super.write();
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
     }
 
     @TearDown(Trial)
@@ -199,6 +468,59 @@ public class MapDb {
     }
   }
 
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte big-endian keys (which sort numerically).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonMapDb {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      capacity = g.total;
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void append(final long from, final long to) {
+      final KeySource source = longKeys();
+      for (long i = from; i < to; i++) {
+        final long key = source.key(i);
+        wkb.putLong(0, key, BIG_ENDIAN);
+        if (valRandom) {
+          wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+        } else {
+          wvb.putLong(0, key);
+        }
+        map.put(wkb.byteArray(), wvb.byteArray());
+      }
+    }
+  }
+
+  /**
+   * Per-thread key buffer over the shared {@link Reader} store, so the "Mt"
+   * benchmarks can run with any <code>-t</code>.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+    }
+  }
+
   @State(Benchmark)
   public static class Writer extends CommonMapDb {
 
@@ -20,14 +20,20 @@
 
 package org.lmdbjava.bench;
 
+import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.util.Arrays.copyOf;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.File;
 import java.io.IOException;
@@ -35,13 +41,17 @@ import java.util.Iterator;
 
 import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import org.h2.mvstore.Cursor;
 import org.h2.mvstore.MVMap;
 import org.h2.mvstore.MVStore;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
@@ -57,6 +67,60 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class MvStore {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final Reader r, final ThreadReader t,
+                            final Contention c, final Blackhole bh) {
+    final int key = c.readKey(r);
+    if (r.intKey) {
+      t.wkb.putInt(0, key);
+    } else {
+      t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+    }
+    bh.consume(r.map.get(copyOf(t.wkb.byteArray(), r.keySize)));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final Reader r, final Contention c) {
+    r.put(c.writeKey(r));
+    r.s.commit();
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final Reader r, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(r, bh);
+    r.s.commit();
+  }
+
+  @Benchmark
+  public void openLoop(final Reader r, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(r, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -72,7 +136,7 @@ public class MvStore {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
       if (r.intKey) {
         r.wkb.putInt(0, key);
       } else {
@@ -82,6 +146,56 @@ public class MvStore {
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.wkb.putInt(0, key);
+      } else {
+        t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.map.get(copyOf(t.wkb.byteArray(), r.keySize)));
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final Reader r, final Step s, final Blackhole bh) {
+    r.get(s.readKey(r), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.map.get(copyOf(r.wkb.byteArray(), r.keySize)));
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      final Cursor<byte[], byte[]> c = r.map.cursor(copyOf(r.wkb.byteArray(),
+                                                           r.keySize));
+      for (int i = 0; i < g.scanLength && c.hasNext(); i++) {
+        c.next();
+        bh.consume(c.getValue());
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     for (long i = r.map.sizeAsLong() - 1; i >= 0; i--) {
@@ -99,6 +213,12 @@ public class MvStore {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final Reader r, final Blackhole bh) {
+    // iterators are created per call, so the shared Reader is thread-safe
+    readSeq(r, bh);
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -112,14 +232,46 @@ public class MvStore {
     bh.consume(result);
   }
 
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final Reader r) {
+    for (final int key : r.visits) {
+      r.put(key);
+    }
+    r.s.commit();
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final Reader r, final Step s) {
+    r.put(s.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonMvStore extends Common {
+  public static class CommonMvStore extends Common implements KvStore {
 
     MVMap<byte[], byte[]> map;
     MVStore s;
@@ -139,24 +291,36 @@ public class MvStore {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
-      s = new MVStore.Builder()
-          .fileName(new File(tmp, "mvstore.db").getAbsolutePath())
-          .autoCommitDisabled()
-          .open();
-      map = s.openMap("ba2ba");
+      openStore();
     }
 
     @Override
     public void teardown() throws IOException {
       reportSpaceBeforeClose();
-      s.close();
+      closeStore();
       super.teardown();
     }
 
+    @Override
+    void closeStore() {
+      s.close();
+    }
+
+    @Override
+    void openStore() {
+      s = new MVStore.Builder()
+          .fileName(new File(tmp, "mvstore.db").getAbsolutePath())
+          .autoCommitDisabled()
+          .open();
+      map = s.openMap("ba2ba");
+    }
+
     void write() {
       final int rndByteMax = RND_MB.length - valSize;
       int rndByteOffset = 0;
-      for (final int key : keys) {
+      final int perCommit = putsPerCommit(keys.length);
+      for (int i = 0; i < keys.length; i++) {
+        final int key = keys[i];
         if (intKey) {
           wkb.putInt(0, key, LITTLE_ENDIAN);
         } else {
@@ -174,19 +338,158 @@ public class MvStore {
         // MvStore requires this copy, otherwise it never stores > 1 entry
         map.put(copyOf(wkb.byteArray(), keySize),
                 copyOf(wvb.byteArray(), valSize));
+        if ((i + 1) % perCommit == 0) {
+          s.commit();
+        }
       }
       s.commit();
     }
+
+    @Override
+    void commit() {
+      s.commit();
+    }
+
+    /**
+     * Removes without committing, as per {@link #put(int)} the caller commits.
+     */
+    @Override
+    public void delete(final int key) {
+      putKey(key);
+      map.remove(copyOf(wkb.byteArray(), keySize));
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      putKey(key);
+      bh.consume(map.get(copyOf(wkb.byteArray(), keySize)));
+    }
+
+    /**
+     * Puts without committing, as per {@link #write()} the caller commits.
+     */
+    @Override
+    public void put(final int key) {
+      putKey(key);
+      putVal(key);
+      map.put(copyOf(wkb.byteArray(), keySize),
+              copyOf(wvb.byteArray(), valSize));
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      putKey(key);
+      final Cursor<byte[], byte[]> c = map.cursor(copyOf(wkb.byteArray(),
+                                                         keySize));
+      for (int i = 0; i < count && c.hasNext(); i++) {
+        c.next();
+        bh.consume(c.getValue());
+      }
+    }
+
+    private void putKey(final int key) {
+      if (intKey) {
+        wkb.putInt(0, key, LITTLE_ENDIAN);
+      } else {
+        wkb.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+
+    private void putVal(final int key) {
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        wvb.putInt(0, key);
+      }
+    }
+  }
+
+  /**
+   * Populated like {@link Reader} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonMvStore {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
   public static class Reader extends CommonMvStore {
 
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
+      super.setup(b);
+      if (!cached) {
+        super.write();
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  @State(Benchmark)
+  public static class Reopener extends CommonMvStore {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
       super.write();
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte big-endian keys (which sort numerically).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonMvStore {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      capacity = g.total;
+      super.setup(b);
     }
 
     @TearDown(Trial)
@@ -194,6 +497,42 @@ public class MvStore {
     public void teardown() throws IOException {
       super.teardown();
     }
+
+    void append(final long from, final long to) {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      for (long i = from; i < to; i += perCommit) {
+        final long end = Math.min(i + perCommit, to);
+        for (long j = i; j < end; j++) {
+          final long key = source.key(j);
+          wkb.putLong(0, key, BIG_ENDIAN);
+          if (valRandom) {
+            wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+          } else {
+            wvb.putLong(0, key);
+          }
+          map.put(copyOf(wkb.byteArray(), keySize),
+                  copyOf(wvb.byteArray(), valSize));
+        }
+        s.commit();
+      }
+    }
+  }
+
+  /**
+   * Per-thread key buffer over the shared {@link Reader} store, so the "Mt"
+   * benchmarks can run with any <code>-t</code>.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    MutableDirectBuffer wkb;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+    }
   }
 
   @State(Benchmark)
@@ -0,0 +1,144 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.System.nanoTime;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.concurrent.locks.LockSupport.parkNanos;
+import static org.openjdk.jmh.annotations.Level.Iteration;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.runner.IterationType.MEASUREMENT;
+
+import java.io.IOException;
+
+import org.HdrHistogram.Histogram;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.IterationParams;
+
+/**
+ * Open-loop driver for the "openLoop" benchmarks, which issue the operations
+ * of a {@link Workload} one at a time on a fixed schedule of {@link #rate}
+ * operations per second instead of back to back.
+ *
+ * <p>
+ * Each operation's latency is measured from the time it was scheduled to
+ * start, not from when it actually started. An operation delayed by a slow
+ * predecessor therefore includes that wait, as a client issuing requests at
+ * this rate would observe (ie the latencies are corrected for coordinated
+ * omission). Latencies of each measurement iteration are recorded in an
+ * HdrHistogram, whose percentiles and maximum are reported in nanoseconds as
+ * <code>latency.*</code> secondary results by {@link BenchStats}. The JMH score itself is just the time per pass over
+ * {@link Common#visits}, which only exceeds <code>num / rate</code> if the
+ * store cannot sustain the rate.
+ *
+ * <p>
+ * Like {@link Workload}, this state is shared and not thread safe, so run
+ * these benchmarks with a single thread.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class OpenLoop {
+
+  /**
+   * Waits longer than this park the thread rather than spin, leaving this much
+   * time to spare for the scheduler to wake it up again.
+   */
+  private static final long PARK_SLACK = MICROSECONDS.toNanos(100);
+
+  private static final String NANOS = "ns";
+
+  private static final String[] PERCENTILES
+      = {"50", "90", "99", "99.9", "99.99"};
+
+  /**
+   * Target rate in operations per second.
+   */
+  @Param("100000")
+  int rate;
+
+  private final Histogram histogram = new Histogram(3);
+  private boolean recording;
+
+  /**
+   * Records the latency percentiles of a measurement iteration (eg
+   * "latency.p99.9") and their maximum ("latency.max").
+   */
+  @TearDown(Iteration)
+  public void report() {
+    if (!recording) {
+      return;
+    }
+    for (final String p : PERCENTILES) {
+      BenchStats.record("latency.p" + p,
+                        histogram.getValueAtPercentile(Double.parseDouble(p)),
+                        NANOS);
+    }
+    BenchStats.record("latency.max", histogram.getMaxValue(), NANOS);
+  }
+
+  /**
+   * Performs one {@link Workload} operation per key in {@link Common#visits},
+   * each starting no earlier than its scheduled time.
+   *
+   * @param <T>   a store state
+   * @param store populated store to operate on
+   * @param w     the operation mix
+   * @param bh    to consume values
+   * @throws IOException if the store failed
+   */
+  <T extends Common & KvStore> void run(final T store, final Workload w,
+                                        final Blackhole bh)
+      throws IOException {
+    final double interval = (double) SECONDS.toNanos(1) / rate;
+    final long start = nanoTime();
+    int i = 0;
+    for (final int key : store.visits) {
+      final long scheduled = start + (long) (i++ * interval);
+      long wait = scheduled - nanoTime();
+      while (wait > 0) {
+        if (wait > PARK_SLACK) {
+          parkNanos(wait - PARK_SLACK);
+        }
+        wait = scheduled - nanoTime();
+      }
+      w.next(store, key, bh);
+      if (recording) {
+        histogram.recordValue(nanoTime() - scheduled);
+      }
+    }
+  }
+
+  @Setup(Iteration)
+  public void setup(final IterationParams i) {
+    recording = i.getType() == MEASUREMENT;
+    histogram.reset();
+  }
+}
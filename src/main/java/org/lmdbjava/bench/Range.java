@@ -0,0 +1,65 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Length of the short scans made by the "readRange" benchmarks, each of which
+ * seeks to a key and reads the entries from there on in key order (as a YCSB
+ * workload E scan does).
+ *
+ * <p>
+ * A pass seeks to the first <code>num / scanLength</code> keys of
+ * {@link Common#visits} (ie following {@link Common#distribution}), so it
+ * reads about as many entries as "readSeq" does. The difference to "readSeq"
+ * is then the cost of the seeks and iterator setup that one full scan
+ * amortizes away.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier"})
+public class Range {
+
+  /**
+   * Entries read after each seek.
+   */
+  @Param("100")
+  int scanLength;
+
+  /**
+   * Number of scans in a pass over a store.
+   *
+   * @param store populated store
+   * @return scans of {@link #scanLength} entries reading about
+   *         {@link Common#num} entries in total
+   */
+  int seeks(final Common store) {
+    return Math.max(1, store.visits.length / scanLength);
+  }
+}
@@ -20,16 +20,29 @@
 
 package org.lmdbjava.bench;
 
+import static java.lang.Integer.parseInt;
+import static java.nio.ByteOrder.BIG_ENDIAN;
 import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
+import static org.lmdbjava.bench.StoreStats.BYTES;
+import static org.lmdbjava.bench.StoreStats.record;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 import static org.rocksdb.CompressionType.NO_COMPRESSION;
 import static org.rocksdb.RocksDB.loadLibrary;
 import static org.rocksdb.RocksDB.open;
+import static org.rocksdb.TickerType.BLOCK_CACHE_HIT;
+import static org.rocksdb.TickerType.BLOCK_CACHE_MISS;
+import static org.rocksdb.TickerType.COMPACT_READ_BYTES;
+import static org.rocksdb.TickerType.COMPACT_WRITE_BYTES;
 
 import java.io.IOException;
 
@@ -38,6 +51,8 @@ import org.agrona.concurrent.UnsafeBuffer;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -47,10 +62,13 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.BenchmarkParams;
 import org.openjdk.jmh.infra.Blackhole;
+import org.rocksdb.BlockBasedTableConfig;
+import org.rocksdb.BloomFilter;
 import org.rocksdb.Options;
 import org.rocksdb.RocksDB;
 import org.rocksdb.RocksDBException;
 import org.rocksdb.RocksIterator;
+import org.rocksdb.Statistics;
 import org.rocksdb.WriteBatch;
 import org.rocksdb.WriteOptions;
 
@@ -62,6 +80,68 @@ import org.rocksdb.WriteOptions;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class RocksDb {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final Reader r, final ThreadReader t,
+                            final Contention c, final Blackhole bh)
+      throws RocksDBException {
+    final int key = c.readKey(r);
+    if (r.intKey) {
+      t.wkb.putInt(0, key);
+    } else {
+      t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+    }
+    bh.consume(r.db.get(t.wkb.byteArray(), t.wvb.byteArray()));
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final Reader r, final Contention c)
+      throws IOException {
+    r.put(c.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void crash(final Crasher c, final Blackhole bh) throws IOException {
+    c.reopen();
+    c.get(c.keys[0], bh);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final Reader r, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(r, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final Reader r, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(r, w, bh);
+  }
+
   @Benchmark
   @SuppressWarnings("PMD.CloseResource")
   public void readCrc(final Reader r, final Blackhole bh) {
@@ -79,7 +159,7 @@ public class RocksDb {
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) throws
       RocksDBException {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
       if (r.intKey) {
         r.wkb.putInt(0, key);
       } else {
@@ -89,6 +169,59 @@ public class RocksDb {
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) throws RocksDBException {
+    for (final int key : r.visits) {
+      if (r.intKey) {
+        t.wkb.putInt(0, key);
+      } else {
+        t.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.db.get(t.wkb.byteArray(), t.wvb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final Reader r, final Step s, final Blackhole bh)
+      throws IOException {
+    r.get(s.readKey(r), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) throws
+      RocksDBException {
+    for (final int key : r.missing) {
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      bh.consume(r.db.get(r.wkb.byteArray(), r.wvb.byteArray()));
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    for (int s = 0; s < seeks; s++) {
+      final int key = r.visits[s];
+      if (r.intKey) {
+        r.wkb.putInt(0, key);
+      } else {
+        r.wkb.putStringWithoutLengthUtf8(0, r.padKey(key));
+      }
+      try (RocksIterator iterator = r.db.newIterator()) {
+        iterator.seek(r.wkb.byteArray());
+        for (int i = 0; i < g.scanLength && iterator.isValid(); i++) {
+          bh.consume(iterator.value());
+          iterator.next();
+        }
+      }
+    }
+  }
+
   @Benchmark
   @SuppressWarnings("PMD.CloseResource")
   public void readRev(final Reader r, final Blackhole bh) {
@@ -111,6 +244,12 @@ public class RocksDb {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final Reader r, final Blackhole bh) {
+    // iterators are created per call, so the shared Reader is thread-safe
+    readSeq(r, bh);
+  }
+
   @Benchmark
   @SuppressWarnings("PMD.CloseResource")
   public void readXxh64(final Reader r, final Blackhole bh) {
@@ -125,17 +264,89 @@ public class RocksDb {
     bh.consume(result);
   }
 
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final Reader r) throws IOException {
+    for (final int key : r.visits) {
+      r.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) throws IOException {
-    w.write(w.batchSize);
+    w.write(w.putsPerCommit(1_000_000));
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final Reader r, final Step s)
+      throws IOException {
+    r.put(s.writeKey(r));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g)
+      throws IOException {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
   }
 
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonRocksDb extends Common {
+  public static class CommonRocksDb extends Common implements KvStore {
+
+    /**
+     * Levels of the default (leveled) compaction style.
+     */
+    static final int NUM_LEVELS = 7;
+
+    /**
+     * Bloom filter bits per key in each table, so lookups skip tables that
+     * cannot hold the key. The default of 0 keeps RocksDB's default of no
+     * filter (10 bits give about a 1% false positive rate).
+     */
+    @Param("0")
+    int bloomBits;
+
+    /**
+     * Filter of {@link #tableConfig}, or null without {@link #bloomBits}.
+     */
+    BloomFilter bloomFilter;
 
     RocksDB db;
 
+    /**
+     * Options the store was opened with, closed with the store.
+     */
+    Options options;
+
+    /**
+     * Tickers collected for {@link StoreStats}, or null if that profiler is
+     * not in use.
+     */
+    Statistics statistics;
+
+    /**
+     * Table format of {@link #options}, or null without {@link #bloomBits}.
+     */
+    BlockBasedTableConfig tableConfig;
+
+    /**
+     * Options of {@link #put(int)}.
+     */
+    WriteOptions writeOptions;
+
     /**
      * Writable key buffer. Backed by a plain byte[] for RocksDB API ease.
      */
@@ -147,15 +358,58 @@ public class RocksDb {
     MutableDirectBuffer wvb;
 
     @Override
-    @SuppressWarnings("PMD.CloseResource")
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
       wkb = new UnsafeBuffer(new byte[keySize]);
       wvb = new UnsafeBuffer(new byte[valSize]);
       loadLibrary();
-      final Options options = new Options();
+      writeOptions = new WriteOptions();
+      if (StoreStats.active()) {
+        statistics = new Statistics();
+      }
+      openStore();
+    }
+
+    @Override
+    public void teardown() throws IOException {
+      reportSpaceBeforeClose();
+      if (db != null) {
+        reportStatsBeforeClose();
+        closeStore();
+      }
+      if (statistics != null) {
+        statistics.close();
+      }
+      writeOptions.close();
+      super.teardown();
+    }
+
+    @Override
+    @SuppressWarnings("PMD.NullAssignment")
+    void closeStore() {
+      db.close();
+      options.close();
+      if (bloomFilter != null) {
+        bloomFilter.close();
+        bloomFilter = null;
+        tableConfig = null;
+      }
+    }
+
+    @Override
+    void openStore() throws IOException {
+      options = new Options();
       options.setCreateIfMissing(true);
       options.setCompressionType(NO_COMPRESSION);
+      if (statistics != null) {
+        options.setStatistics(statistics);
+      }
+      if (bloomBits > 0) {
+        bloomFilter = new BloomFilter(bloomBits);
+        tableConfig = new BlockBasedTableConfig()
+            .setFilterPolicy(bloomFilter);
+        options.setTableFormatConfig(tableConfig);
+      }
       try {
         db = open(options, tmp.getAbsolutePath());
       } catch (final RocksDBException ex) {
@@ -164,21 +418,44 @@ public class RocksDb {
     }
 
     @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      if (db != null) {
-        db.close();
+    void stats() throws IOException {
+      try {
+        record("rocksdb.pendingCompactionBytes",
+               db.getLongProperty("rocksdb.estimate-pending-compaction-bytes"),
+               BYTES);
+        record("rocksdb.sstBytes",
+               db.getLongProperty("rocksdb.total-sst-files-size"), BYTES);
+        int levels = 0;
+        for (int level = 0; level < NUM_LEVELS; level++) {
+          if (parseInt(db.getProperty("rocksdb.num-files-at-level"
+                                      + level)) > 0) {
+            levels++;
+          }
+        }
+        record("rocksdb.levels", levels, "levels");
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
       }
-      super.teardown();
+      if (statistics == null) {
+        return;
+      }
+      final long hits = statistics.getTickerCount(BLOCK_CACHE_HIT);
+      final long lookups = hits + statistics.getTickerCount(BLOCK_CACHE_MISS);
+      if (lookups > 0) {
+        record("rocksdb.blockCacheHitRatio", (double) hits / lookups, "ratio");
+      }
+      record("rocksdb.compactReadBytes",
+             statistics.getTickerCount(COMPACT_READ_BYTES), BYTES);
+      record("rocksdb.compactWriteBytes",
+             statistics.getTickerCount(COMPACT_WRITE_BYTES), BYTES);
     }
 
     @SuppressWarnings({"PMD.CyclomaticComplexity", "PMD.CloseResource"})
-    void write(final int batchSize) throws IOException {
+    void write(final int perCommit) throws IOException {
       final int rndByteMax = RND_MB.length - valSize;
       int rndByteOffset = 0;
 
       final WriteBatch batch = new WriteBatch();
-      final WriteOptions opt = new WriteOptions();
       for (int i = 0; i < keys.length; i++) {
         final int key = keys[i];
         if (intKey) {
@@ -200,9 +477,9 @@ public class RocksDb {
         } catch (final RocksDBException ex) {
           throw new IOException(ex);
         }
-        if (i % batchSize == 0) {
+        if ((i + 1) % perCommit == 0) {
           try {
-            db.write(opt, batch);
+            db.write(writeOptions, batch);
           } catch (final RocksDBException ex) {
             throw new IOException(ex);
           }
@@ -210,12 +487,145 @@ public class RocksDb {
         }
       }
       try {
-        db.write(opt, batch); // possible partial batch
+        db.write(writeOptions, batch); // possible partial batch
       } catch (final RocksDBException ex) {
         throw new IOException(ex);
       }
       batch.clear();
     }
+
+    @Override
+    public void delete(final int key) throws IOException {
+      putKey(key);
+      try {
+        db.delete(writeOptions, wkb.byteArray());
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) throws IOException {
+      putKey(key);
+      try {
+        bh.consume(db.get(wkb.byteArray(), wvb.byteArray()));
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    @Override
+    boolean contains(final int key) throws IOException {
+      putKey(key);
+      try {
+        return db.get(wkb.byteArray()) != null;
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    @Override
+    public void put(final int key) throws IOException {
+      putKey(key);
+      putVal(key);
+      try {
+        db.put(writeOptions, wkb.byteArray(), wvb.byteArray());
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      putKey(key);
+      try (RocksIterator iterator = db.newIterator()) {
+        iterator.seek(wkb.byteArray());
+        for (int i = 0; i < count && iterator.isValid(); i++) {
+          bh.consume(iterator.value());
+          iterator.next();
+        }
+      }
+    }
+
+    private void putKey(final int key) {
+      if (intKey) {
+        wkb.putInt(0, key, LITTLE_ENDIAN);
+      } else {
+        wkb.putStringWithoutLengthUtf8(0, padKey(key));
+      }
+    }
+
+    private void putVal(final int key) {
+      if (valRandom) {
+        wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+      } else {
+        wvb.putInt(0, key);
+      }
+    }
+  }
+
+  /**
+   * Written by a child process that is killed part way through (see
+   * {@link Crash}).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class Crasher extends CommonRocksDb {
+
+    /**
+     * Whether each put is synced to disk (see {@link WriteOptions#setSync}).
+     */
+    @Param("false")
+    boolean sync;
+
+    private Crash crash;
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Crash c)
+        throws IOException {
+      super.setup(b);
+      writeOptions.setSync(sync);
+      crash = c;
+      c.setup(this, b);
+    }
+
+    @Setup(Invocation)
+    public void kill() throws IOException {
+      crash.kill(this);
+    }
+
+    @TearDown(Invocation)
+    public void verify() throws IOException {
+      crash.verify(this);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonRocksDb {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write(num);
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
@@ -224,8 +634,66 @@ public class RocksDb {
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
+      linkable = true;
+      super.setup(b);
+      if (!cached) {
+        super.write(num);
+      }
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  @State(Benchmark)
+  public static class Reopener extends CommonRocksDb {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      linkable = true;
       super.setup(b);
       super.write(num);
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte big-endian keys (which sort numerically).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonRocksDb {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      capacity = g.total;
+      super.setup(b);
     }
 
     @TearDown(Trial)
@@ -233,19 +701,67 @@ public class RocksDb {
     public void teardown() throws IOException {
       super.teardown();
     }
+
+    void append(final long from, final long to) throws IOException {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      try (WriteBatch batch = new WriteBatch();
+           WriteOptions opt = new WriteOptions()) {
+        for (long i = from; i < to; i += perCommit) {
+          final long end = Math.min(i + perCommit, to);
+          for (long j = i; j < end; j++) {
+            final long key = source.key(j);
+            wkb.putLong(0, key, BIG_ENDIAN);
+            if (valRandom) {
+              wvb.putBytes(0, RND_MB, nextRndByteOffset(), valSize);
+            } else {
+              wvb.putLong(0, key);
+            }
+            batch.put(wkb.byteArray(), wvb.byteArray());
+          }
+          db.write(opt, batch);
+          batch.clear();
+        }
+      } catch (final RocksDBException ex) {
+        throw new IOException(ex);
+      }
+    }
+  }
+
+  /**
+   * Per-thread key buffers over the shared {@link Reader} store, so the "Mt"
+   * benchmarks can run with any <code>-t</code>.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    MutableDirectBuffer wkb;
+    MutableDirectBuffer wvb;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      wkb = new UnsafeBuffer(new byte[r.keySize]);
+      wvb = new UnsafeBuffer(new byte[r.valSize]);
+    }
   }
 
   @State(Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonRocksDb {
 
-    @Param("1000000")
-    int batchSize;
+    /**
+     * Whether each write batch is synced to disk (see
+     * {@link WriteOptions#setSync}).
+     */
+    @Param("false")
+    boolean sync;
 
     @Setup(Invocation)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
+      writeOptions.setSync(sync);
     }
 
     @TearDown(Invocation)
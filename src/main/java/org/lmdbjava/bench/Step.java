@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.annotations.Scope.Thread;
+
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Per-thread position within the key orders of a populated store, for the
+ * "readKeyOp" and "writeOp" benchmarks where each JMH operation is a single
+ * lookup or put rather than a pass over every key. JMH's SampleTime mode then
+ * reports the latency distribution of individual operations, including any
+ * that stall on a page fault, instead of averaging them over a pass.
+ *
+ * <p>
+ * Lookups follow {@link Common#visits} (ie {@link Common#distribution}) and
+ * puts overwrite {@link Common#keys} in order, each wrapping around at the end.
+ */
+@State(Thread)
+public class Step {
+
+  private int read;
+  private int write;
+
+  /**
+   * Next key to look up.
+   *
+   * @param store populated store
+   * @return an existing key, unless {@link Common#hitRatio} is below 1
+   */
+  int readKey(final Common store) {
+    final int key = store.visits[read];
+    read = (read + 1) % store.visits.length;
+    return key;
+  }
+
+  /**
+   * Next key to overwrite.
+   *
+   * @param store populated store
+   * @return an existing key
+   */
+  int writeKey(final Common store) {
+    final int key = store.keys[write];
+    write = (write + 1) % store.keys.length;
+    return key;
+  }
+}
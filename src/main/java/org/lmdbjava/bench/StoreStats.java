@@ -0,0 +1,103 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static org.openjdk.jmh.results.AggregationPolicy.AVG;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler that reports engine-internal statistics of the store under
+ * test (eg LMDB B-tree depth and page counts, RocksDB block cache hit ratio
+ * and compaction bytes, Xodus log statistics) as secondary results. Enable it
+ * with <code>-prof org.lmdbjava.bench.StoreStats</code>.
+ *
+ * <p>
+ * Stores publish their statistics through {@link #record} from
+ * {@link Common#stats()}, at the end of each iteration and just before they
+ * close. Each iteration reports the most recently recorded values, so
+ * benchmarks that write a fresh store per invocation report the store as it
+ * was when the iteration's last invocation finished.
+ */
+public final class StoreStats implements InternalProfiler {
+
+  static final String BYTES = "bytes";
+  static final String PAGES = "pages";
+
+  private static final AtomicBoolean ENABLED = new AtomicBoolean();
+  private static final String PREFIX = "·store.";
+  private static final Map<String, ScalarResult> RESULTS
+      = new ConcurrentSkipListMap<>();
+
+  /**
+   * Whether this profiler is collecting statistics in the current JVM.
+   *
+   * @return true if stores should publish their statistics
+   */
+  static boolean active() {
+    return ENABLED.get();
+  }
+
+  /**
+   * Records the current value of a statistic, replacing any value recorded
+   * earlier in the same iteration.
+   *
+   * @param name  statistic name, prefixed by the store type (eg "lmdb.depth")
+   * @param value current value
+   * @param unit  unit of the value (eg {@link #PAGES})
+   */
+  static void record(final String name, final double value, final String unit) {
+    final String label = PREFIX + name;
+    RESULTS.put(label, new ScalarResult(label, value, unit, AVG));
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      final BenchmarkParams benchmarkParams,
+      final IterationParams iterationParams,
+      final IterationResult result) {
+    final Collection<ScalarResult> results = new ArrayList<>(RESULTS.values());
+    RESULTS.clear();
+    return results;
+  }
+
+  @Override
+  public void beforeIteration(final BenchmarkParams benchmarkParams,
+                              final IterationParams iterationParams) {
+    ENABLED.set(true);
+  }
+
+  @Override
+  public String getDescription() {
+    return "Store-internal statistics (LMDB, RocksDB and Xodus)";
+  }
+}
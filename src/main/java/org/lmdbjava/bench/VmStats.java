@@ -0,0 +1,210 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Long.parseLong;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.file.Files.readAllLines;
+import static org.lmdbjava.bench.StoreStats.BYTES;
+import static org.openjdk.jmh.results.AggregationPolicy.AVG;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * JMH profiler that reports the page faults, resident memory and IO of the
+ * benchmark JVM as secondary results. Stores that memory map their files (eg
+ * LMDB, Chronicle Map, MapDB with <code>fileMmapEnable()</code>) pay for reads
+ * in page faults the GC profiler does not see. Enable it with
+ * <code>-prof org.lmdbjava.bench.VmStats</code>.
+ *
+ * <ul>
+ * <li><code>vm.minorFaults</code> and <code>vm.majorFaults</code>: page faults
+ * per operation, per <code>/proc/self/stat</code>. Major faults required a
+ * device read.
+ * <li><code>vm.rss</code>, <code>vm.rssFile</code> and
+ * <code>vm.rssAnon</code>: resident memory at the end of the iteration, per
+ * <code>/proc/self/status</code>. <code>rssFile</code> is the mapped files
+ * (including store files) and <code>rssAnon</code> the heap and other
+ * anonymous memory.
+ * <li><code>vm.readChars</code>, <code>vm.writeChars</code>,
+ * <code>vm.readBytes</code> and <code>vm.writeBytes</code>: bytes per
+ * operation passed to read/write system calls and read from or written to
+ * storage, per <code>/proc/self/io</code>. Page faults on mapped files are
+ * counted by the latter but not the former.
+ * </ul>
+ *
+ * <p>
+ * All figures cover the whole JVM, including JMH and any store background
+ * threads.
+ */
+public final class VmStats implements InternalProfiler {
+
+  private static final String FAULTS = "faults/op";
+  private static final String BYTES_PER_OP = "bytes/op";
+  private static final String[] IO_FIELDS = {"rchar", "wchar", "read_bytes",
+                                             "write_bytes"};
+  private static final String[] IO_LABELS = {"readChars", "writeChars",
+                                             "readBytes", "writeBytes"};
+  private static final int MAJFLT = 9; // field 12, counted from field 3
+  private static final int MINFLT = 7; // field 10, counted from field 3
+  private static final String PREFIX = "·vm.";
+  private static final Path PROC_IO = Paths.get("/proc/self/io");
+  private static final Path PROC_STAT = Paths.get("/proc/self/stat");
+  private static final Path PROC_STATUS = Paths.get("/proc/self/status");
+  private static final String[] RSS_FIELDS = {"VmRSS", "RssFile", "RssAnon"};
+  private static final String[] RSS_LABELS = {"rss", "rssFile", "rssAnon"};
+
+  private long[] faultsBefore;
+  private long[] ioBefore;
+
+  /**
+   * Reads the cumulative minor and major page faults of this process.
+   *
+   * @return minor and major faults, or null if unavailable
+   */
+  @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+  private static long[] faults() {
+    final List<String> lines = lines(PROC_STAT);
+    if (lines == null || lines.isEmpty()) {
+      return null;
+    }
+    // the command name may contain spaces, so split after it
+    final String stat = lines.get(0);
+    final String[] fields = stat.substring(stat.lastIndexOf(')') + 2)
+        .split(" ");
+    return new long[]{parseLong(fields[MINFLT]), parseLong(fields[MAJFLT])};
+  }
+
+  /**
+   * Reads the cumulative IO of this process.
+   *
+   * @return values of {@link #IO_FIELDS}, or null if unavailable
+   */
+  @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+  private static long[] io() {
+    final List<String> lines = lines(PROC_IO);
+    if (lines == null) {
+      return null;
+    }
+    final long[] io = new long[IO_FIELDS.length];
+    for (final String line : lines) {
+      final String[] kv = line.split(":\\s*");
+      for (int i = 0; i < IO_FIELDS.length; i++) {
+        if (IO_FIELDS[i].equals(kv[0])) {
+          io[i] = parseLong(kv[1]);
+        }
+      }
+    }
+    return io;
+  }
+
+  @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+  private static List<String> lines(final Path path) {
+    try {
+      return readAllLines(path, US_ASCII);
+    } catch (final IOException ex) {
+      return null;
+    }
+  }
+
+  /**
+   * Reads the resident memory of this process.
+   *
+   * @return bytes for each of {@link #RSS_FIELDS}, or null if unavailable
+   */
+  @SuppressWarnings("PMD.ReturnEmptyCollectionRatherThanNull")
+  private static long[] rss() {
+    final List<String> lines = lines(PROC_STATUS);
+    if (lines == null) {
+      return null;
+    }
+    final long[] rss = new long[RSS_FIELDS.length];
+    for (final String line : lines) {
+      final String[] kv = line.split(":\\s*");
+      for (int i = 0; i < RSS_FIELDS.length; i++) {
+        if (RSS_FIELDS[i].equals(kv[0])) {
+          // eg "VmRSS:     1234 kB"
+          rss[i] = parseLong(kv[1].split(" ")[0]) * 1_024;
+        }
+      }
+    }
+    return rss;
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      final BenchmarkParams benchmarkParams,
+      final IterationParams iterationParams,
+      final IterationResult result) {
+    final Collection<ScalarResult> results = new ArrayList<>();
+    final long[] faultsAfter = faults();
+    final long[] ioAfter = io();
+    final long[] rss = rss();
+    final double ops = Math.max(1, result.getMetadata().getAllOps());
+
+    if (faultsBefore != null && faultsAfter != null) {
+      results.add(new ScalarResult(PREFIX + "minorFaults",
+                                   (faultsAfter[0] - faultsBefore[0]) / ops,
+                                   FAULTS, AVG));
+      results.add(new ScalarResult(PREFIX + "majorFaults",
+                                   (faultsAfter[1] - faultsBefore[1]) / ops,
+                                   FAULTS, AVG));
+    }
+    if (ioBefore != null && ioAfter != null) {
+      for (int i = 0; i < IO_LABELS.length; i++) {
+        results.add(new ScalarResult(PREFIX + IO_LABELS[i],
+                                     (ioAfter[i] - ioBefore[i]) / ops,
+                                     BYTES_PER_OP, AVG));
+      }
+    }
+    if (rss != null) {
+      for (int i = 0; i < RSS_LABELS.length; i++) {
+        results.add(new ScalarResult(PREFIX + RSS_LABELS[i], rss[i], BYTES,
+                                     AVG));
+      }
+    }
+    return results;
+  }
+
+  @Override
+  public void beforeIteration(final BenchmarkParams benchmarkParams,
+                              final IterationParams iterationParams) {
+    faultsBefore = faults();
+    ioBefore = io();
+  }
+
+  @Override
+  public String getDescription() {
+    return "Page faults, resident memory and IO per operation";
+  }
+}
@@ -0,0 +1,166 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.lang.Double.parseDouble;
+import static org.openjdk.jmh.annotations.Level.Trial;
+import static org.openjdk.jmh.annotations.Scope.Benchmark;
+
+import java.io.IOException;
+
+import org.apache.commons.math3.random.BitsStreamGenerator;
+import org.apache.commons.math3.random.MersenneTwister;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * YCSB-style mix of reads, updates, inserts, scans and read-modify-writes,
+ * issued one operation at a time against a populated {@link KvStore}.
+ *
+ * <p>
+ * Inserts use new (negative) keys. They cycle after {@link Common#num} such
+ * keys, so a store never grows beyond twice its initial number of entries.
+ *
+ * <p>
+ * Members do not reflect the typical code standards of the LmdbJava project due
+ * to compliance requirements with JMH {@link Param} and {@link State}.
+ */
+@State(Benchmark)
+@SuppressWarnings({"checkstyle:designforextension",
+                   "checkstyle:visibilitymodifier",
+                   "PMD.AvoidFieldNameMatchingTypeName"})
+public class Workload {
+
+  private static final int OPS = 5;
+
+  /**
+   * Longest scan (YCSB "maxscanlength"). Each scan reads a uniformly random
+   * number of entries between 1 and this value.
+   */
+  @Param("100")
+  int maxScanLength;
+
+  /**
+   * Either a YCSB core workload (A to F) or five colon-separated weights for
+   * read:update:insert:scan:read-modify-write (eg "90:10:0:0:0").
+   */
+  @Param("B")
+  String workload;
+
+  private int inserted;
+  private final BitsStreamGenerator rnd = new MersenneTwister();
+
+  /**
+   * Cumulative probability thresholds, in read, update, insert, scan, RMW
+   * order.
+   */
+  private final double[] thresholds = new double[OPS];
+
+  @SuppressWarnings({"checkstyle:MagicNumber", "checkstyle:ReturnCount",
+                     "PMD.CyclomaticComplexity"})
+  static double[] weights(final String workload) {
+    switch (workload) {
+      case "A":
+        return new double[]{50, 50, 0, 0, 0};
+      case "B":
+        return new double[]{95, 5, 0, 0, 0};
+      case "C":
+        return new double[]{100, 0, 0, 0, 0};
+      case "D":
+        return new double[]{95, 0, 5, 0, 0};
+      case "E":
+        return new double[]{0, 0, 5, 95, 0};
+      case "F":
+        return new double[]{50, 0, 0, 0, 50};
+      default:
+        final String[] parts = workload.split(":");
+        if (parts.length != OPS) {
+          throw new IllegalArgumentException("Unknown workload " + workload);
+        }
+        final double[] weights = new double[OPS];
+        for (int i = 0; i < OPS; i++) {
+          weights[i] = parseDouble(parts[i]);
+        }
+        return weights;
+    }
+  }
+
+  /**
+   * Performs a single operation chosen at random according to the workload
+   * weights.
+   *
+   * @param <T>   a store state
+   * @param store populated store to operate on
+   * @param key   existing key to operate on (ignored by inserts)
+   * @param bh    to consume values
+   * @throws IOException if the store failed
+   */
+  <T extends Common & KvStore> void next(final T store, final int key,
+                                         final Blackhole bh)
+      throws IOException {
+    final double p = rnd.nextDouble();
+    if (p < thresholds[0]) {
+      store.get(key, bh);
+    } else if (p < thresholds[1]) {
+      store.put(key);
+    } else if (p < thresholds[2]) {
+      store.put(-1 - inserted);
+      inserted = (inserted + 1) % store.num;
+    } else if (p < thresholds[3]) {
+      store.scan(key, 1 + rnd.nextInt(maxScanLength), bh);
+    } else {
+      store.get(key, bh);
+      store.put(key);
+    }
+  }
+
+  /**
+   * Performs one operation per key in {@link Common#visits}, choosing each
+   * operation at random according to the workload weights.
+   *
+   * @param <T>   a store state
+   * @param store populated store to operate on
+   * @param bh    to consume values
+   * @throws IOException if the store failed
+   */
+  <T extends Common & KvStore> void run(final T store, final Blackhole bh)
+      throws IOException {
+    for (final int key : store.visits) {
+      next(store, key, bh);
+    }
+  }
+
+  @Setup(Trial)
+  public void setup() {
+    final double[] weights = weights(workload);
+    double total = 0;
+    for (final double w : weights) {
+      total += w;
+    }
+    double cumulative = 0;
+    for (int i = 0; i < OPS; i++) {
+      cumulative += weights[i];
+      thresholds[i] = cumulative / total;
+    }
+  }
+}
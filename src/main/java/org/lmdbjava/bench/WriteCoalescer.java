@@ -0,0 +1,245 @@
+/*-
+ * #%L
+ * LmdbJava Benchmarks
+ * %%
+ * Copyright (C) 2016 - 2022 The LmdbJava Open Source Project
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+package org.lmdbjava.bench;
+
+import static java.nio.ByteBuffer.allocateDirect;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.concurrent.ringbuffer.RingBuffer.INSUFFICIENT_CAPACITY;
+import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.TRAILER_LENGTH;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.agrona.DirectBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.BackoffIdleStrategy;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.ManyToOneRingBuffer;
+import org.lmdbjava.Dbi;
+import org.lmdbjava.Env;
+import org.lmdbjava.LmdbException;
+import org.lmdbjava.Txn;
+
+/**
+ * Group-commit front-end for an LMDB environment, letting many threads share
+ * each write transaction (and its <code>fsync</code>) instead of serializing
+ * on LMDB's single writer lock.
+ *
+ * <p>
+ * Producers copy each put into a many-to-one ring buffer. A single committer
+ * thread drains whatever is queued into one write transaction, commits it and
+ * then completes the future of every put in that batch (exceptionally if the
+ * batch failed). Should the committer thread itself fail, every pending put
+ * fails with the same cause and later puts are refused.
+ */
+final class WriteCoalescer implements AutoCloseable {
+
+  private static final int CORRELATION_OFFSET = 0;
+  private static final int KEY_LENGTH_OFFSET = CORRELATION_OFFSET
+                                                   + SIZE_OF_LONG;
+  private static final int KEY_OFFSET = KEY_LENGTH_OFFSET + SIZE_OF_INT;
+  private static final int MSG_TYPE_ID = 1;
+
+  private final LongArrayList batch = new LongArrayList();
+  private final Thread committer;
+  private final Dbi<DirectBuffer> db;
+  private final Env<DirectBuffer> env;
+  private LmdbException failure;
+  private volatile Throwable fatal;
+  private final MessageHandler handler
+      = (msgTypeId, buffer, index, length) -> onMessage(buffer, index, length);
+  private final UnsafeBuffer key = new UnsafeBuffer(0, 0);
+  private final Map<Long, CompletableFuture<Void>> pending
+      = new ConcurrentHashMap<>();
+  private final ManyToOneRingBuffer ring;
+  private final AtomicBoolean running = new AtomicBoolean(true);
+  private Txn<DirectBuffer> txn;
+  private final UnsafeBuffer val = new UnsafeBuffer(0, 0);
+
+  /**
+   * Starts the committer thread.
+   *
+   * @param env      environment to write to (without another writer)
+   * @param db       database to put into
+   * @param capacity ring buffer size in bytes (a power of two)
+   */
+  WriteCoalescer(final Env<DirectBuffer> env, final Dbi<DirectBuffer> db,
+                 final int capacity) {
+    this.env = env;
+    this.db = db;
+    ring = new ManyToOneRingBuffer(new UnsafeBuffer(
+        allocateDirect(capacity + TRAILER_LENGTH)));
+    committer = new Thread(this::run, "lmdb-committer");
+    committer.setDaemon(true);
+    committer.start();
+  }
+
+  /**
+   * Stops the committer thread once it has committed every queued put. No
+   * further puts may be submitted.
+   */
+  @Override
+  public void close() {
+    running.set(false);
+    try {
+      committer.join();
+    } catch (final InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Queues a put. The buffers are copied before this method returns, so they
+   * may be reused immediately.
+   *
+   * @param k key to put
+   * @param v value to put
+   * @return completed once the transaction containing the put has committed
+   * @throws IllegalStateException if the committer thread has failed
+   */
+  CompletableFuture<Void> put(final DirectBuffer k, final DirectBuffer v) {
+    final int keyLength = k.capacity();
+    final int length = KEY_OFFSET + keyLength + v.capacity();
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    final long correlationId = ring.nextCorrelationId();
+    // registered before checking for failure, so failAll() cannot miss it
+    pending.put(correlationId, future);
+    checkRunning(correlationId);
+
+    int index = ring.tryClaim(MSG_TYPE_ID, length);
+    while (index == INSUFFICIENT_CAPACITY) {
+      checkRunning(correlationId);
+      Thread.yield();
+      index = ring.tryClaim(MSG_TYPE_ID, length);
+    }
+    final AtomicBuffer buffer = ring.buffer();
+    buffer.putLong(index + CORRELATION_OFFSET, correlationId);
+    buffer.putInt(index + KEY_LENGTH_OFFSET, keyLength);
+    buffer.putBytes(index + KEY_OFFSET, k, 0, keyLength);
+    buffer.putBytes(index + KEY_OFFSET + keyLength, v, 0, v.capacity());
+    ring.commit(index);
+    return future;
+  }
+
+  private void checkRunning(final long correlationId) {
+    final Throwable cause = fatal;
+    if (cause != null) {
+      pending.remove(correlationId);
+      throw new IllegalStateException("Committer thread failed", cause);
+    }
+  }
+
+  @SuppressWarnings("PMD.NullAssignment")
+  private int drain() {
+    final int count = ring.read(handler);
+    if (count == 0) {
+      return 0;
+    }
+    if (failure == null) {
+      try {
+        txn.commit();
+      } catch (final LmdbException ex) {
+        failure = ex;
+      }
+    }
+    if (txn != null) {
+      txn.close();
+      txn = null;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      final CompletableFuture<Void> future = pending.remove(batch.getLong(i));
+      if (failure == null) {
+        future.complete(null);
+      } else {
+        future.completeExceptionally(failure);
+      }
+    }
+    batch.clear();
+    failure = null;
+    return count;
+  }
+
+  private void onMessage(final MutableDirectBuffer buffer, final int index,
+                         final int length) {
+    batch.addLong(buffer.getLong(index + CORRELATION_OFFSET));
+    if (failure != null) {
+      return;
+    }
+    final int keyLength = buffer.getInt(index + KEY_LENGTH_OFFSET);
+    key.wrap(buffer, index + KEY_OFFSET, keyLength);
+    val.wrap(buffer, index + KEY_OFFSET + keyLength,
+             length - KEY_OFFSET - keyLength);
+    try {
+      if (txn == null) {
+        txn = env.txnWrite();
+      }
+      db.put(txn, key, val);
+    } catch (final LmdbException ex) {
+      failure = ex;
+    }
+  }
+
+  /**
+   * Fails every queued and in-flight put after the committer thread itself
+   * failed, aborting any open transaction.
+   */
+  @SuppressWarnings("PMD.NullAssignment")
+  private void failAll(final Throwable cause) {
+    fatal = cause;
+    if (txn != null) {
+      try {
+        txn.close();
+      } catch (final RuntimeException ex) {
+        cause.addSuppressed(ex);
+      }
+      txn = null;
+    }
+    for (final Long correlationId : pending.keySet()) {
+      final CompletableFuture<Void> future = pending.remove(correlationId);
+      if (future != null) {
+        future.completeExceptionally(cause);
+      }
+    }
+  }
+
+  @SuppressWarnings("PMD.AvoidCatchingThrowable")
+  private void run() {
+    try {
+      final IdleStrategy idle = new BackoffIdleStrategy();
+      while (running.get()) {
+        idle.idle(drain());
+      }
+      int drained;
+      do {
+        drained = drain();
+      } while (drained > 0);
+    } catch (final Throwable t) {
+      failAll(t);
+    }
+  }
+}
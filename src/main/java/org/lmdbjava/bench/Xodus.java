@@ -21,17 +21,30 @@
 package org.lmdbjava.bench;
 
 import static java.util.Arrays.copyOfRange;
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static jetbrains.exodus.bindings.IntegerBinding.intToEntry;
+import static jetbrains.exodus.bindings.LongBinding.longToEntry;
 import static jetbrains.exodus.bindings.StringBinding.stringToEntry;
+import static jetbrains.exodus.env.EnvironmentStatistics.Type.BYTES_MOVED_BY_GC;
+import static jetbrains.exodus.env.EnvironmentStatistics.Type.BYTES_READ;
+import static jetbrains.exodus.env.EnvironmentStatistics.Type.BYTES_WRITTEN;
+import static jetbrains.exodus.env.EnvironmentStatistics.Type.DISK_USAGE;
+import static jetbrains.exodus.env.EnvironmentStatistics.Type.UTILIZATION_PERCENT;
 import static jetbrains.exodus.env.Environments.newInstance;
 import static jetbrains.exodus.env.StoreConfig.WITHOUT_DUPLICATES_WITH_PREFIXING;
 import static net.openhft.hashing.LongHashFunction.xx_r39;
 import static org.lmdbjava.bench.Common.RND_MB;
+import static org.lmdbjava.bench.StoreStats.BYTES;
+import static org.lmdbjava.bench.StoreStats.record;
 import static org.openjdk.jmh.annotations.Level.Invocation;
 import static org.openjdk.jmh.annotations.Level.Trial;
 import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.SingleShotTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
 import static org.openjdk.jmh.annotations.Scope.Benchmark;
+import static org.openjdk.jmh.annotations.Scope.Thread;
 
 import java.io.IOException;
 
@@ -42,11 +55,15 @@ import jetbrains.exodus.env.Environment;
 import jetbrains.exodus.env.EnvironmentConfig;
 import jetbrains.exodus.env.Store;
 import jetbrains.exodus.env.Transaction;
+import jetbrains.exodus.management.Statistics;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.TearDown;
@@ -62,6 +79,53 @@ import org.openjdk.jmh.infra.Blackhole;
 @SuppressWarnings({"checkstyle:javadoctype", "checkstyle:designforextension"})
 public class Xodus {
 
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(3)
+  public void contendedRead(final ReadWriter rw, final Contention c,
+                            final Blackhole bh) {
+    rw.get(c.readKey(rw), bh);
+  }
+
+  @Benchmark
+  @BenchmarkMode({SampleTime, Throughput})
+  @Group("contended")
+  @GroupThreads(1)
+  public void contendedWrite(final ReadWriter rw, final Contention c)
+      throws IOException {
+    rw.put(c.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void delete(final Deleter d, final Deletion x) throws IOException {
+    x.delete(d);
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void deleteThenReinsert(final Deleter d, final Deletion x)
+      throws IOException {
+    x.delete(d);
+    x.reinsert(d);
+  }
+
+  @Benchmark
+  public void mixed(final ReadWriter rw, final Workload w, final Blackhole bh)
+      throws IOException {
+    w.run(rw, bh);
+  }
+
+  @Benchmark
+  public void openLoop(final ReadWriter rw, final OpenLoop o,
+                       final Workload w, final Blackhole bh)
+      throws IOException {
+    o.run(rw, w, bh);
+  }
+
   @Benchmark
   public void readCrc(final Reader r, final Blackhole bh) {
     r.crc.reset();
@@ -76,7 +140,7 @@ public class Xodus {
 
   @Benchmark
   public void readKey(final Reader r, final Blackhole bh) {
-    for (final int key : r.keys) {
+    for (final int key : r.visits) {
       if (r.intKey) {
         final ByteIterable val = r.store.get(r.tx, intToEntry(key));
         if (val != null) {
@@ -91,6 +155,62 @@ public class Xodus {
     }
   }
 
+  @Benchmark
+  public void readKeyMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    for (final int key : r.visits) {
+      final ByteIterable val;
+      if (r.intKey) {
+        val = r.store.get(t.tx, intToEntry(key));
+      } else {
+        val = r.store.get(t.tx, stringToEntry(r.padKey(key)));
+      }
+      if (val != null) {
+        bh.consume(val.getBytesUnsafe());
+      }
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void readKeyOp(final ReadWriter rw, final Step s, final Blackhole bh) {
+    rw.get(s.readKey(rw), bh);
+  }
+
+  @Benchmark
+  public void readMissing(final Reader r, final Blackhole bh) {
+    for (final int key : r.missing) {
+      if (r.intKey) {
+        final ByteIterable val = r.store.get(r.tx, intToEntry(key));
+        if (val != null) {
+          bh.consume(val.getBytesUnsafe());
+        }
+      } else {
+        final ByteIterable val = r.store.get(r.tx, stringToEntry(r.padKey(key)));
+        if (val != null) {
+          bh.consume(val.getBytesUnsafe());
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public void readRange(final Reader r, final Range g, final Blackhole bh) {
+    final int seeks = g.seeks(r);
+    try (Cursor c = r.store.openCursor(r.tx)) {
+      for (int s = 0; s < seeks; s++) {
+        final int key = r.visits[s];
+        final ByteIterable keyBi = r.intKey ? intToEntry(key)
+                                   : stringToEntry(r.padKey(key));
+        boolean found = c.getSearchKeyRange(keyBi) != null;
+        for (int i = 0; found && i < g.scanLength; i++) {
+          bh.consume(c.getValue().getBytesUnsafe());
+          found = c.getNext();
+        }
+      }
+    }
+  }
+
   @Benchmark
   public void readRev(final Reader r, final Blackhole bh) {
     try (Cursor c = r.store.openCursor(r.tx)) {
@@ -110,6 +230,16 @@ public class Xodus {
     }
   }
 
+  @Benchmark
+  public void readSeqMt(final Reader r, final ThreadReader t,
+                        final Blackhole bh) {
+    try (Cursor c = r.store.openCursor(t.tx)) {
+      while (c.getNext()) {
+        bh.consume(c.getValue().getBytesUnsafe());
+      }
+    }
+  }
+
   @Benchmark
   public void readXxh64(final Reader r, final Blackhole bh) {
     long result = 0;
@@ -123,26 +253,81 @@ public class Xodus {
     bh.consume(result);
   }
 
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  public void reopen(final Reopener r, final Blackhole bh) throws IOException {
+    r.reopen();
+    r.get(r.keys[0], bh);
+  }
+
+  @Benchmark
+  public void update(final ReadWriter rw) {
+    for (final int key : rw.visits) {
+      rw.put(key);
+    }
+  }
+
   @Benchmark
   public void write(final Writer w, final Blackhole bh) {
     w.write();
   }
 
+  @Benchmark
+  @OutputTimeUnit(MICROSECONDS)
+  public void writeOp(final ReadWriter rw, final Step s) {
+    rw.put(s.writeKey(rw));
+  }
+
+  @Benchmark
+  @BenchmarkMode(SingleShotTime)
+  @Measurement(iterations = 10)
+  @OutputTimeUnit(SECONDS)
+  @Warmup(iterations = 0)
+  public void writeScale(final ScaleWriter w, final Growth g) {
+    final long from = g.next();
+    w.append(from, from + g.scaleStep);
+  }
+
   @State(value = Benchmark)
   @SuppressWarnings("checkstyle:visibilitymodifier")
-  public static class CommonXodus extends Common {
+  public static class CommonXodus extends Common implements KvStore {
 
+    /**
+     * Whether each commit is flushed to disk by {@link #openStore()} (see
+     * {@link EnvironmentConfig#setLogDurableWrite(boolean)}).
+     */
+    boolean durableWrite;
     Environment env;
     Store store;
 
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
       super.setup(b);
+      openStore();
+    }
 
+    @Override
+    public void teardown() throws IOException {
+      closeThreadResources();
+      reportSpaceBeforeClose();
+      reportStatsBeforeClose();
+      closeStore();
+      super.teardown();
+    }
+
+    @Override
+    void closeStore() {
+      env.close();
+    }
+
+    @Override
+    void openStore() {
       final EnvironmentConfig cfg = new EnvironmentConfig();
       // size of immutable .xd file is 32MB
       cfg.setLogFileSize(32 * 1_024);
       cfg.setLogCachePageSize(0x2_0000);
+      cfg.setLogDurableWrite(durableWrite);
       env = newInstance(tmp, cfg);
 
       env.executeInTransaction((final Transaction txn) -> {
@@ -155,17 +340,26 @@ public class Xodus {
     }
 
     @Override
-    public void teardown() throws IOException {
-      reportSpaceBeforeClose();
-      env.close();
-      super.teardown();
+    void stats() {
+      final Statistics<?> s = env.getStatistics();
+      record("xodus.bytesRead", s.getStatisticsItem(BYTES_READ.id).getTotal(),
+             BYTES);
+      record("xodus.bytesWritten",
+             s.getStatisticsItem(BYTES_WRITTEN.id).getTotal(), BYTES);
+      record("xodus.bytesMovedByGc",
+             s.getStatisticsItem(BYTES_MOVED_BY_GC.id).getTotal(), BYTES);
+      record("xodus.diskUsage", s.getStatisticsItem(DISK_USAGE.id).getTotal(),
+             BYTES);
+      record("xodus.utilization",
+             s.getStatisticsItem(UTILIZATION_PERCENT.id).getTotal(), "%");
     }
 
     @SuppressWarnings({"PMD.AvoidInstantiatingObjectsInLoops",
                        "PMD.ForLoopVariableCount"})
     void write() {
       // optimal w/ valSize=16368 + default run
-      final int batchSize = Math.max(1_000_000 / valSize, 1_000);
+      final int batchSize =
+          putsPerCommit(Math.max(1_000_000 / valSize, 1_000));
       final RandomBytesIterator rbi = new RandomBytesIterator(valSize);
       int k = 0;
       while (k < keys.length) {
@@ -202,6 +396,106 @@ public class Xodus {
         });
       }
     }
+
+    @Override
+    public void delete(final int key) {
+      final ByteIterable keyBi = keyEntry(key);
+      env.executeInTransaction((final Transaction tx) -> store.delete(tx,
+                                                                      keyBi));
+    }
+
+    @Override
+    public void get(final int key, final Blackhole bh) {
+      final ByteIterable keyBi = keyEntry(key);
+      env.executeInReadonlyTransaction((final Transaction tx) -> {
+        final ByteIterable val = store.get(tx, keyBi);
+        if (val != null) {
+          bh.consume(val.getBytesUnsafe());
+        }
+      });
+    }
+
+    @Override
+    public void put(final int key) {
+      final ByteIterable keyBi = keyEntry(key);
+      final ByteIterable valBi;
+      if (valRandom) {
+        final int offset = nextRndByteOffset();
+        valBi = new ArrayByteIterable(copyOfRange(RND_MB, offset,
+                                                  offset + valSize));
+      } else {
+        final byte[] bytes = new byte[valSize];
+        bytes[0] = (byte) (key >>> 24);
+        bytes[1] = (byte) (key >>> 16);
+        bytes[2] = (byte) (key >>> 8);
+        bytes[3] = (byte) key;
+        valBi = new ArrayByteIterable(bytes, valSize);
+      }
+      env.executeInTransaction((final Transaction tx) -> store.put(tx, keyBi,
+                                                                   valBi));
+    }
+
+    @Override
+    public void scan(final int key, final int count, final Blackhole bh) {
+      final ByteIterable keyBi = keyEntry(key);
+      env.executeInReadonlyTransaction((final Transaction tx) -> {
+        try (Cursor c = store.openCursor(tx)) {
+          boolean found = c.getSearchKeyRange(keyBi) != null;
+          for (int i = 0; found && i < count; i++) {
+            bh.consume(c.getValue().getBytesUnsafe());
+            found = c.getNext();
+          }
+        }
+      });
+    }
+
+    private ByteIterable keyEntry(final int key) {
+      return intKey ? intToEntry(key) : stringToEntry(padKey(key));
+    }
+  }
+
+  /**
+   * Populated like {@link ReadWriter} before every "delete" and
+   * "deleteThenReinsert" invocation.
+   */
+  @State(Benchmark)
+  public static class Deleter extends CommonXodus {
+
+    @Setup(Invocation)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      reportSpaceUsed(tmp, "populated");
+    }
+
+    @TearDown(Invocation)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Populated like {@link Reader}, but without a long-lived read-only
+   * transaction (which would stop Xodus reclaiming space freed by later
+   * writes).
+   */
+  @State(Benchmark)
+  public static class ReadWriter extends CommonXodus {
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
   }
 
   @State(Benchmark)
@@ -213,8 +507,11 @@ public class Xodus {
     @Setup(Trial)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
+      cacheable = true;
       super.setup(b);
-      super.write();
+      if (!cached) {
+        super.write();
+      }
       tx = env.beginReadonlyTransaction();
       // cannot share Cursor, as there's no Cursor.getFirst() to reset methods
     }
@@ -228,11 +525,117 @@ public class Xodus {
   }
 
   @State(Benchmark)
+  public static class Reopener extends CommonXodus {
+
+    /**
+     * How the store is left before every reopen (see
+     * {@link Common#closeForReopen(String)}).
+     */
+    @Param("clean")
+    String shutdown;
+
+    @Setup(Trial)
+    @Override
+    public void setup(final BenchmarkParams b) throws IOException {
+      super.setup(b);
+      super.write();
+      closeForReopen(shutdown);
+    }
+
+    @Setup(Invocation)
+    public void restore() throws IOException {
+      restoreForReopen();
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+  }
+
+  /**
+   * Store grown by {@link Growth#scaleStep} entries per "writeScale"
+   * iteration, with 8 byte big-endian keys (which sort numerically).
+   */
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ScaleWriter extends CommonXodus {
+
+    @Setup(Trial)
+    public void setup(final BenchmarkParams b, final Growth g)
+        throws IOException {
+      longKey = true;
+      capacity = g.total;
+      super.setup(b);
+    }
+
+    @TearDown(Trial)
+    @Override
+    public void teardown() throws IOException {
+      super.teardown();
+    }
+
+    void append(final long from, final long to) {
+      final int perCommit = putsPerCommit(1_000_000);
+      final KeySource source = longKeys();
+      final RandomBytesIterator rbi = new RandomBytesIterator(valSize);
+      for (long i = from; i < to; i += perCommit) {
+        final long start = i;
+        final long end = Math.min(i + perCommit, to);
+        // write in several transactions so as not to block GC
+        env.executeInTransaction((final Transaction tx) -> {
+          for (long j = start; j < end; j++) {
+            final long key = source.key(j);
+            final ByteIterable valBi;
+            if (valRandom) {
+              valBi = new ArrayByteIterable(rbi.nextBytes());
+            } else {
+              valBi = longToEntry(key);
+            }
+            if (sequential) {
+              store.putRight(tx, longToEntry(key), valBi);
+            } else {
+              store.put(tx, longToEntry(key), valBi);
+            }
+          }
+        });
+      }
+    }
+  }
+
+  /**
+   * Per-thread read-only transaction over the shared {@link Reader}
+   * environment, so the "Mt" benchmarks can run with any <code>-t</code>.
+   * It is aborted by the {@link Reader} before its environment is closed.
+   */
+  @State(Thread)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
+  public static class ThreadReader {
+
+    Transaction tx;
+
+    @Setup(Trial)
+    public void setup(final Reader r) {
+      tx = r.env.beginReadonlyTransaction();
+      r.registerThreadResource(tx::abort);
+    }
+  }
+
+  @State(Benchmark)
+  @SuppressWarnings("checkstyle:visibilitymodifier")
   public static class Writer extends CommonXodus {
 
+    /**
+     * Whether each transaction is synced to disk.
+     */
+    @Param("false")
+    boolean sync;
+
     @Setup(Invocation)
     @Override
     public void setup(final BenchmarkParams b) throws IOException {
+      durableWrite = sync;
       super.setup(b);
     }
 